@@ -0,0 +1,99 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools.benchmark;
+
+import dev.majek.chattools.ConcurrentPagination;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the throughput of a {@link ConcurrentPagination} with many threads rendering pages
+ * while one or two threads keep adding lines to it.
+ *
+ * @author Majekdor
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentPaginationBenchmark {
+
+  private static final Component LINE = Component.text("Warp", NamedTextColor.GRAY);
+
+  private ConcurrentPagination pagination;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    this.pagination = new ConcurrentPagination(Component.text("Warps"), "/warps");
+    for (int i = 0; i < 10_000; i++) {
+      this.pagination.addLine(Component.text("Warp " + i, NamedTextColor.GRAY));
+    }
+  }
+
+  @Benchmark
+  @Group("oneWriter")
+  @GroupThreads(7)
+  public List<Component> oneWriterRender() {
+    return this.pagination.render(this.pagination.numPages());
+  }
+
+  @Benchmark
+  @Group("oneWriter")
+  @GroupThreads(1)
+  public ConcurrentPagination oneWriterAdd() {
+    return this.pagination.addLine(LINE);
+  }
+
+  @Benchmark
+  @Group("twoWriters")
+  @GroupThreads(6)
+  public List<Component> twoWritersRender() {
+    return this.pagination.render(this.pagination.numPages());
+  }
+
+  @Benchmark
+  @Group("twoWriters")
+  @GroupThreads(2)
+  public ConcurrentPagination twoWritersAdd() {
+    return this.pagination.addLine(LINE);
+  }
+}
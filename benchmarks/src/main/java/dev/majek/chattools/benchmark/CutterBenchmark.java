@@ -0,0 +1,93 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools.benchmark;
+
+import dev.majek.chattools.TextComponentCutter;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link TextComponentCutter#cutComponent(Component)} on deep and wide component trees.
+ *
+ * @author Majekdor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CutterBenchmark {
+
+  private static final NamedTextColor[] COLORS = NamedTextColor.NAMES.values().toArray(new NamedTextColor[0]);
+
+  @Param({"deep", "wide"})
+  public String shape;
+
+  @Param({"64", "1024"})
+  public int size;
+
+  private Component component;
+
+  @Setup
+  public void setup() {
+    if (this.shape.equals("deep")) {
+      // every component is the only child of the one before it
+      Component component = Component.text("the deepest part of the tree ");
+      for (int i = this.size - 1; i > 0; i--) {
+        component = Component.text("level " + i + " of the tree ", COLORS[i % COLORS.length]).append(component);
+      }
+      this.component = component;
+    } else {
+      final TextComponent.Builder builder = Component.text();
+      for (int i = 0; i < this.size; i++) {
+        builder.append(Component.text("sibling number " + i + " ", COLORS[i % COLORS.length])
+            .decoration(TextDecoration.BOLD, i % 3 == 0));
+      }
+      this.component = builder.build();
+    }
+  }
+
+  @Benchmark
+  public List<Component> cutComponent() {
+    // the same widths pagination cuts at, a cutter is single use
+    return new TextComponentCutter(50, 60).cutComponent(this.component);
+  }
+}
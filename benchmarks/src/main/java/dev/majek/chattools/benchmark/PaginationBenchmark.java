@@ -0,0 +1,92 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools.benchmark;
+
+import dev.majek.chattools.Pagination;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks filling and rendering a {@link Pagination}. Rendering the first and the last page
+ * side by side shows whether render time depends on how many lines there are.
+ *
+ * @author Majekdor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationBenchmark {
+
+  @Param({"10", "1000", "100000", "1000000"})
+  public int lines;
+
+  private List<Component> components;
+  private Pagination pagination;
+
+  @Setup
+  public void setup() {
+    this.components = new ArrayList<>(this.lines);
+    for (int i = 0; i < this.lines; i++) {
+      // every tenth line is long enough to be cut
+      this.components.add(i % 10 == 0
+          ? Component.text("Warp " + i + " - a long description of the warp that has to be cut in two",
+          NamedTextColor.GRAY)
+          : Component.text("Warp " + i, NamedTextColor.GRAY));
+    }
+    this.pagination = new Pagination(Component.text("Warps"), "/warps").addLines(this.components);
+  }
+
+  @Benchmark
+  public Pagination addLines() {
+    return new Pagination(Component.text("Warps"), "/warps").addLines(this.components);
+  }
+
+  @Benchmark
+  public List<Component> renderFirstPage() {
+    return this.pagination.render(1);
+  }
+
+  @Benchmark
+  public List<Component> renderLastPage() {
+    return this.pagination.render(this.pagination.numPages());
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools.benchmark;
+
+import dev.majek.chattools.MiniMessageWrapper;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link MiniMessageWrapper#mmString(String)} and {@link MiniMessageWrapper#mmParse(String)}
+ * on the kinds of messages players actually send.
+ *
+ * @author Majekdor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapperBenchmark {
+
+  private static final String PLAIN = "hey does anyone want to trade some diamonds for my enchanted bow? "
+      + "meet me at spawn in five minutes";
+  private static final String LEGACY = "&6[&eVIP&6] &b&lMajekdor &8» &7hey &cdoes &aanyone &dwant &fto "
+      + "&ntrade&r &7some &bdiamonds &7for my &5&oenchanted &7bow";
+  private static final String HEX = "&#ff5555H&#ff7755e&#ff9955x <#1eae98>colors <color:#d8b5ff>every"
+      + "<#fafafa>where &x&f&f&0&0&f&fspigot &#abcshort <colour:#123456>done";
+  private static final String GRADIENT = "<gradient:#1eae98:#d8b5ff>Majekdor</gradient> <gradient:#5e4fa2:"
+      + "#f79459:#ff0000>is typing a long gradient message</gradient> <rainbow>and a rainbow</rainbow>";
+  private static final String ADVERSARIAL = adversarial();
+
+  @Param({"standard", "legacy", "restricted"})
+  public String wrapper;
+
+  @Param({"plain", "legacy", "hex", "gradient", "adversarial"})
+  public String input;
+
+  private MiniMessageWrapper instance;
+  private String message;
+
+  @Setup
+  public void setup() {
+    switch (this.wrapper) {
+      case "standard":
+        this.instance = MiniMessageWrapper.standard();
+        break;
+      case "legacy":
+        this.instance = MiniMessageWrapper.legacy();
+        break;
+      default:
+        // a locked down channel, everything that can be restricted is
+        this.instance = MiniMessageWrapper.builder().legacyColors(true).gradients(false).standardColors(false)
+            .removeColors(true, NamedTextColor.BLACK, NamedTextColor.DARK_BLUE, NamedTextColor.DARK_GRAY)
+            .preventLuminanceBelow(40).build();
+    }
+    switch (this.input) {
+      case "plain":
+        this.message = PLAIN;
+        break;
+      case "legacy":
+        this.message = LEGACY;
+        break;
+      case "hex":
+        this.message = HEX;
+        break;
+      case "gradient":
+        this.message = GRADIENT;
+        break;
+      default:
+        this.message = ADVERSARIAL;
+    }
+  }
+
+  @Benchmark
+  public String mmString() {
+    return this.instance.mmString(this.message);
+  }
+
+  @Benchmark
+  public Component mmParse() {
+    return this.instance.mmParse(this.message);
+  }
+
+  // what a player would send to make sanitizing as slow as possible, a message packed with
+  // blocked hex tags, broken spigot codes and unterminated gradients
+  private static String adversarial() {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 32; i++) {
+      builder.append("<#000000>").append("&x&0&0&0").append("<gradient:#000000").append("\\&").append('<');
+    }
+    return builder.toString();
+  }
+}
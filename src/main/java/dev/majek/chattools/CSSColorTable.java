@@ -0,0 +1,379 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.format.TextColor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>An immutable table of named colors, the CSS colors by default, used by mini message tags
+ * like {@code <aliceblue>} and {@code <css:aliceblue>}.</p>
+ * <p>Names are compiled into a trie over letters, digits, '_' and '-'. Looking one up walks the
+ * name's characters once, ignoring case, without hashing or allocating. Custom colors, like a
+ * server's palette, are added with a {@link Builder} which creates a new table.</p>
+ *
+ * @author Majekdor
+ */
+public final class CSSColorTable {
+
+  // the index of each character's edge, -1 if it can't be in a name, upper case shares lower case's
+  private static final int ALPHABET = 38;
+  private static final byte[] INDEX = new byte[128];
+
+  static {
+    Arrays.fill(INDEX, (byte) -1);
+    for (char c = 'a'; c <= 'z'; c++) {
+      INDEX[c] = (byte) (c - 'a');
+      INDEX[Character.toUpperCase(c)] = (byte) (c - 'a');
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      INDEX[c] = (byte) (26 + c - '0');
+    }
+    INDEX['_'] = 36;
+    INDEX['-'] = 37;
+  }
+
+  private static final CSSColorTable CSS = builder()
+        .put("aliceblue", TextColor.color(0xf0f8ff))
+        .put("antiquewhite", TextColor.color(0xfaebd7))
+        .put("aqua", TextColor.color(0x00ffff))
+        .put("aquamarine", TextColor.color(0x7fffd4))
+        .put("azure", TextColor.color(0xf0ffff))
+        .put("beige", TextColor.color(0xf5f5dc))
+        .put("bisque", TextColor.color(0xffe4c4))
+        .put("black", TextColor.color(0x000000))
+        .put("blanchedalmond", TextColor.color(0xffebcd))
+        .put("blue", TextColor.color(0x0000ff))
+        .put("blueviolet", TextColor.color(0x8a2be2))
+        .put("brown", TextColor.color(0xa52a2a))
+        .put("burlywood", TextColor.color(0xdeb887))
+        .put("cadetblue", TextColor.color(0x5f9ea0))
+        .put("chartreuse", TextColor.color(0x7fff00))
+        .put("chocolate", TextColor.color(0xd2691e))
+        .put("coral", TextColor.color(0xff7f50))
+        .put("cornflowerblue", TextColor.color(0x6495ed))
+        .put("cornsilk", TextColor.color(0xfff8dc))
+        .put("crimson", TextColor.color(0xdc143c))
+        .put("cyan", TextColor.color(0x00ffff))
+        .put("darkblue", TextColor.color(0x00008b))
+        .put("darkcyan", TextColor.color(0x008b8b))
+        .put("darkgoldenrod", TextColor.color(0xb8860b))
+        .put("darkgray", TextColor.color(0xa9a9a9))
+        .put("darkgreen", TextColor.color(0x006400))
+        .put("darkgrey", TextColor.color(0xa9a9a9))
+        .put("darkkhaki", TextColor.color(0xbdb76b))
+        .put("darkmagenta", TextColor.color(0x8b008b))
+        .put("darkolivegreen", TextColor.color(0x556b2f))
+        .put("darkorange", TextColor.color(0xff8c00))
+        .put("darkorchid", TextColor.color(0x9932cc))
+        .put("darkred", TextColor.color(0x8b0000))
+        .put("darksalmon", TextColor.color(0xe9967a))
+        .put("darkseagreen", TextColor.color(0x8fbc8f))
+        .put("darkslateblue", TextColor.color(0x483d8b))
+        .put("darkslategray", TextColor.color(0x2f4f4f))
+        .put("darkslategrey", TextColor.color(0x2f4f4f))
+        .put("darkturquoise", TextColor.color(0x00ced1))
+        .put("darkviolet", TextColor.color(0x9400d3))
+        .put("deeppink", TextColor.color(0xff1493))
+        .put("deepskyblue", TextColor.color(0x00bfff))
+        .put("dimgray", TextColor.color(0x696969))
+        .put("dimgrey", TextColor.color(0x696969))
+        .put("dodgerblue", TextColor.color(0x1e90ff))
+        .put("firebrick", TextColor.color(0xb22222))
+        .put("floralwhite", TextColor.color(0xfffaf0))
+        .put("forestgreen", TextColor.color(0x228b22))
+        .put("fuchsia", TextColor.color(0xff00ff))
+        .put("gainsboro", TextColor.color(0xdcdcdc))
+        .put("ghostwhite", TextColor.color(0xf8f8ff))
+        .put("gold", TextColor.color(0xffd700))
+        .put("goldenrod", TextColor.color(0xdaa520))
+        .put("gray", TextColor.color(0x808080))
+        .put("green", TextColor.color(0x008000))
+        .put("greenyellow", TextColor.color(0xadff2f))
+        .put("grey", TextColor.color(0x808080))
+        .put("honeydew", TextColor.color(0xf0fff0))
+        .put("hotpink", TextColor.color(0xff69b4))
+        .put("indianred", TextColor.color(0xcd5c5c))
+        .put("indigo", TextColor.color(0x4b0082))
+        .put("ivory", TextColor.color(0xfffff0))
+        .put("khaki", TextColor.color(0xf0e68c))
+        .put("lavender", TextColor.color(0xe6e6fa))
+        .put("lavenderblush", TextColor.color(0xfff0f5))
+        .put("lawngreen", TextColor.color(0x7cfc00))
+        .put("lemonchiffon", TextColor.color(0xfffacd))
+        .put("lightblue", TextColor.color(0xadd8e6))
+        .put("lightcoral", TextColor.color(0xf08080))
+        .put("lightcyan", TextColor.color(0xe0ffff))
+        .put("lightgoldenrodyellow", TextColor.color(0xfafad2))
+        .put("lightgray", TextColor.color(0xd3d3d3))
+        .put("lightgreen", TextColor.color(0x90ee90))
+        .put("lightgrey", TextColor.color(0xd3d3d3))
+        .put("lightpink", TextColor.color(0xffb6c1))
+        .put("lightsalmon", TextColor.color(0xffa07a))
+        .put("lightseagreen", TextColor.color(0x20b2aa))
+        .put("lightskyblue", TextColor.color(0x87cefa))
+        .put("lightslategray", TextColor.color(0x778899))
+        .put("lightslategrey", TextColor.color(0x778899))
+        .put("lightsteelblue", TextColor.color(0xb0c4de))
+        .put("lightyellow", TextColor.color(0xffffe0))
+        .put("lime", TextColor.color(0x00ff00))
+        .put("limegreen", TextColor.color(0x32cd32))
+        .put("linen", TextColor.color(0xfaf0e6))
+        .put("magenta", TextColor.color(0xff00ff))
+        .put("maroon", TextColor.color(0x800000))
+        .put("mediumaquamarine", TextColor.color(0x66cdaa))
+        .put("mediumblue", TextColor.color(0x0000cd))
+        .put("mediumorchid", TextColor.color(0xba55d3))
+        .put("mediumpurple", TextColor.color(0x9370db))
+        .put("mediumseagreen", TextColor.color(0x3cb371))
+        .put("mediumslateblue", TextColor.color(0x7b68ee))
+        .put("mediumspringgreen", TextColor.color(0x00fa9a))
+        .put("mediumturquoise", TextColor.color(0x48d1cc))
+        .put("mediumvioletred", TextColor.color(0xc71585))
+        .put("midnightblue", TextColor.color(0x191970))
+        .put("mintcream", TextColor.color(0xf5fffa))
+        .put("mistyrose", TextColor.color(0xffe4e1))
+        .put("moccasin", TextColor.color(0xffe4b5))
+        .put("navajowhite", TextColor.color(0xffdead))
+        .put("navy", TextColor.color(0x000080))
+        .put("oldlace", TextColor.color(0xfdf5e6))
+        .put("olive", TextColor.color(0x808000))
+        .put("olivedrab", TextColor.color(0x6b8e23))
+        .put("orange", TextColor.color(0xffa500))
+        .put("orangered", TextColor.color(0xff4500))
+        .put("orchid", TextColor.color(0xda70d6))
+        .put("palegoldenrod", TextColor.color(0xeee8aa))
+        .put("palegreen", TextColor.color(0x98fb98))
+        .put("paleturquoise", TextColor.color(0xafeeee))
+        .put("palevioletred", TextColor.color(0xdb7093))
+        .put("papayawhip", TextColor.color(0xffefd5))
+        .put("peachpuff", TextColor.color(0xffdab9))
+        .put("peru", TextColor.color(0xcd853f))
+        .put("pink", TextColor.color(0xffc0cb))
+        .put("plum", TextColor.color(0xdda0dd))
+        .put("powderblue", TextColor.color(0xb0e0e6))
+        .put("purple", TextColor.color(0x800080))
+        .put("red", TextColor.color(0xff0000))
+        .put("rosybrown", TextColor.color(0xbc8f8f))
+        .put("royalblue", TextColor.color(0x4169e1))
+        .put("saddlebrown", TextColor.color(0x8b4513))
+        .put("salmon", TextColor.color(0xfa8072))
+        .put("sandybrown", TextColor.color(0xf4a460))
+        .put("seagreen", TextColor.color(0x2e8b57))
+        .put("seashell", TextColor.color(0xfff5ee))
+        .put("sienna", TextColor.color(0xa0522d))
+        .put("silver", TextColor.color(0xc0c0c0))
+        .put("skyblue", TextColor.color(0x87ceeb))
+        .put("slateblue", TextColor.color(0x6a5acd))
+        .put("slategray", TextColor.color(0x708090))
+        .put("slategrey", TextColor.color(0x708090))
+        .put("snow", TextColor.color(0xfffafa))
+        .put("springgreen", TextColor.color(0x00ff7f))
+        .put("steelblue", TextColor.color(0x4682b4))
+        .put("tan", TextColor.color(0xd2b48c))
+        .put("teal", TextColor.color(0x008080))
+        .put("thistle", TextColor.color(0xd8bfd8))
+        .put("tomato", TextColor.color(0xff6347))
+        .put("turquoise", TextColor.color(0x40e0d0))
+        .put("violet", TextColor.color(0xee82ee))
+        .put("wheat", TextColor.color(0xf5deb3))
+        .put("white", TextColor.color(0xffffff))
+        .put("whitesmoke", TextColor.color(0xf5f5f5))
+        .put("yellow", TextColor.color(0xffff00))
+        .put("yellowgreen", TextColor.color(0x9acd32))
+        .build();
+
+  private final Map<String, TextColor> colors;
+  // for each node, the nodes its edges lead to or 0, null if it has none
+  private final int[][] next;
+  // for each node, the color of the name ending there or null
+  private final TextColor[] values;
+
+  private CSSColorTable(final @NotNull Map<String, TextColor> colors) {
+    this.colors = Collections.unmodifiableMap(new LinkedHashMap<>(colors));
+    int nodes = 1;
+    for (String name : colors.keySet()) {
+      nodes += name.length();
+    }
+    final int[][] next = new int[nodes][];
+    final TextColor[] values = new TextColor[nodes];
+    int size = 1;
+    for (Map.Entry<String, TextColor> entry : colors.entrySet()) {
+      final String name = entry.getKey();
+      int node = 0;
+      for (int i = 0; i < name.length(); i++) {
+        if (next[node] == null) {
+          next[node] = new int[ALPHABET];
+        }
+        final int index = INDEX[name.charAt(i)];
+        if (next[node][index] == 0) {
+          next[node][index] = size++;
+        }
+        node = next[node][index];
+      }
+      values[node] = entry.getValue();
+    }
+    this.next = Arrays.copyOf(next, size);
+    this.values = Arrays.copyOf(values, size);
+  }
+
+  /**
+   * Get the table of the named CSS colors.
+   *
+   * @return the css colors
+   */
+  public static @NotNull CSSColorTable css() {
+    return CSS;
+  }
+
+  /**
+   * Create a new, empty {@link Builder}.
+   *
+   * @return a builder
+   */
+  public static @NotNull Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Create a {@link Builder} starting with this table's colors.
+   *
+   * @return a builder
+   */
+  public @NotNull Builder toBuilder() {
+    final Builder builder = new Builder();
+    builder.colors.putAll(this.colors);
+    return builder;
+  }
+
+  /**
+   * Get the color with a name, ignoring case.
+   *
+   * @param name the name
+   * @return the color, or null if there's none with that name
+   */
+  public @Nullable TextColor get(final @NotNull CharSequence name) {
+    int node = 0;
+    for (int i = 0; i < name.length(); i++) {
+      final char c = name.charAt(i);
+      final int index = c < 128 ? INDEX[c] : -1;
+      if (index < 0 || this.next[node] == null) {
+        return null;
+      }
+      node = this.next[node][index];
+      if (node == 0) {
+        return null;
+      }
+    }
+    return this.values[node];
+  }
+
+  /**
+   * Whether there's a color with a name, ignoring case.
+   *
+   * @param name the name
+   * @return whether there's a color
+   */
+  public boolean contains(final @NotNull CharSequence name) {
+    return this.get(name) != null;
+  }
+
+  /**
+   * Get the number of colors in this table.
+   *
+   * @return the size
+   */
+  public int size() {
+    return this.colors.size();
+  }
+
+  /**
+   * Get every color in this table by its lower case name.
+   *
+   * @return an unmodifiable view of the colors
+   */
+  public @NotNull Map<String, TextColor> asMap() {
+    return this.colors;
+  }
+
+  /**
+   * A builder for {@link CSSColorTable}.
+   */
+  public static final class Builder {
+
+    private final Map<String, TextColor> colors = new LinkedHashMap<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Add a color, replacing any color with the same name.
+     *
+     * @param name the name, only letters, digits, '_' and '-', case is ignored
+     * @param color the color
+     * @return this builder
+     * @throws IllegalArgumentException if the name is empty or has other characters
+     */
+    public @NotNull Builder put(final @NotNull String name, final @NotNull TextColor color) {
+      if (name.isEmpty()) {
+        throw new IllegalArgumentException("A color name can't be empty");
+      }
+      for (int i = 0; i < name.length(); i++) {
+        final char c = name.charAt(i);
+        if (c >= 128 || INDEX[c] < 0) {
+          throw new IllegalArgumentException("Invalid character '" + c + "' in color name " + name);
+        }
+      }
+      this.colors.put(name.toLowerCase(Locale.ROOT), color);
+      return this;
+    }
+
+    /**
+     * Add every color of a table, replacing any colors with the same names.
+     *
+     * @param table the table
+     * @return this builder
+     */
+    public @NotNull Builder putAll(final @NotNull CSSColorTable table) {
+      this.colors.putAll(table.colors);
+      return this;
+    }
+
+    /**
+     * Build the table.
+     *
+     * @return the table
+     */
+    public @NotNull CSSColorTable build() {
+      return new CSSColorTable(this.colors);
+    }
+  }
+}
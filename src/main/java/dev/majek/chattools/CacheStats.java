@@ -0,0 +1,131 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A snapshot of the statistics of a {@link MiniMessageWrapper}'s parse cache.
+ *
+ * @author Majekdor
+ * @see MiniMessageWrapper.Builder#cache(int)
+ */
+public final class CacheStats {
+
+  static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0);
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long totalLoadTime;
+  private final int size;
+
+  CacheStats(final long hitCount, final long missCount, final long evictionCount,
+             final long totalLoadTime, final int size) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.totalLoadTime = totalLoadTime;
+    this.size = size;
+  }
+
+  /**
+   * Get the number of times a result was found in the cache.
+   *
+   * @return the hit count
+   */
+  public long hitCount() {
+    return this.hitCount;
+  }
+
+  /**
+   * Get the number of times a result had to be parsed.
+   *
+   * @return the miss count
+   */
+  public long missCount() {
+    return this.missCount;
+  }
+
+  /**
+   * Get the number of lookups, hits and misses combined.
+   *
+   * @return the request count
+   */
+  public long requestCount() {
+    return this.hitCount + this.missCount;
+  }
+
+  /**
+   * Get the ratio of lookups that were hits, 1 if there were no lookups.
+   *
+   * @return the hit rate
+   */
+  public double hitRate() {
+    final long requests = this.requestCount();
+    return requests == 0 ? 1.0 : (double) this.hitCount / requests;
+  }
+
+  /**
+   * Get the number of entries evicted to stay within the cache's bounds.
+   *
+   * @return the eviction count
+   */
+  public long evictionCount() {
+    return this.evictionCount;
+  }
+
+  /**
+   * Get the total time spent parsing on misses, in nanoseconds.
+   *
+   * @return the total load time
+   */
+  public long totalLoadTime() {
+    return this.totalLoadTime;
+  }
+
+  /**
+   * Get the average time spent parsing on a miss, in nanoseconds.
+   *
+   * @return the average load time
+   */
+  public double averageLoadPenalty() {
+    return this.missCount == 0 ? 0.0 : (double) this.totalLoadTime / this.missCount;
+  }
+
+  /**
+   * Get the number of entries in the cache.
+   *
+   * @return the size
+   */
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public @NotNull String toString() {
+    return "CacheStats{hitCount=" + this.hitCount + ", missCount=" + this.missCount + ", evictionCount="
+        + this.evictionCount + ", totalLoadTime=" + this.totalLoadTime + ", size=" + this.size + "}";
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+
+/**
+ * <p>Decides whether a hex color is blocked by a {@link MiniMessageWrapper}'s options, so it's
+ * too dark or too close to a removed color.</p>
+ * <p>The luminance check is plain arithmetic. Finding the nearest named color is the expensive
+ * part, so its result is remembered in a small direct-mapped table. Repeated colors, like a
+ * rainbow spammed across chat, are answered without allocating anything.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class ColorPolicy {
+
+  private static final int TABLE_SIZE = 4096;
+  private static final int TABLE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(TABLE_SIZE);
+
+  // each entry is the color shifted left twice, then whether it's blocked, then whether it's set
+  private static final int BLOCKED = 0b10;
+  private static final int SET = 0b01;
+
+  private final Set<NamedTextColor> removedColors;
+  private final boolean checkNearest;
+  private final int luminanceThreshold;
+  // written racily, which is fine since an int is written whole and any entry is correct
+  private final int[] table;
+
+  ColorPolicy(final boolean blockCloseHex, final @NotNull Set<NamedTextColor> removedColors,
+              final int luminanceThreshold) {
+    this.removedColors = removedColors;
+    this.checkNearest = blockCloseHex && !removedColors.isEmpty();
+    this.luminanceThreshold = luminanceThreshold;
+    this.table = this.checkNearest ? new int[TABLE_SIZE] : null;
+  }
+
+  /**
+   * Whether a hex color should be removed because it's too dark or too close to a removed color.
+   *
+   * @param rgb the color
+   * @return whether to remove it
+   */
+  boolean isBlocked(final int rgb) {
+    if (this.luminanceThreshold > 0 && MiniMessageWrapperImpl.luma(rgb) < this.luminanceThreshold) {
+      return true;
+    }
+    if (!this.checkNearest) {
+      return false;
+    }
+
+    final int slot = (rgb * 0x9E3779B1) >>> TABLE_SHIFT;
+    final int entry = this.table[slot];
+    if ((entry & SET) != 0 && (entry >>> 2) == rgb) {
+      return (entry & BLOCKED) != 0;
+    }
+    final boolean blocked = this.removedColors.contains(NamedTextColor.nearestTo(TextColor.color(rgb)));
+    this.table[slot] = (rgb << 2) | (blocked ? BLOCKED : 0) | SET;
+    return blocked;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.ComponentLike;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.event.HoverEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template that's been sanitized and parsed once, with holes left for its placeholders.
+ * Rendering only fills the holes, the template itself is never parsed again.
+ *
+ * @author Majekdor
+ * @see MiniMessageWrapper#compile(String, String...)
+ */
+public final class CompiledTemplate {
+
+  // marks a hole in the skeleton, a private use character so it won't show up in real text
+  static final String HOLE_PREFIX = "\uE000";
+
+  private final MiniMessageWrapper wrapper;
+  private final Component skeleton;
+  private final Map<String, String> holes;
+
+  CompiledTemplate(final @NotNull MiniMessageWrapper wrapper, final @NotNull Component skeleton,
+                   final @NotNull Map<String, String> holes) {
+    this.wrapper = wrapper;
+    this.skeleton = skeleton;
+    this.holes = holes;
+  }
+
+  /**
+   * Render the template, parsing each value with the wrapper that compiled it so its
+   * restrictions still apply to the values. Placeholders without a value are left empty.
+   *
+   * @param values the values of the placeholders, by key
+   * @return the rendered component
+   */
+  public @NotNull Component render(final @NotNull Map<String, String> values) {
+    final Map<String, Component> components = new HashMap<>(values.size());
+    values.forEach((key, value) -> components.put(key, this.wrapper.mmParse(value)));
+    return this.fill(this.skeleton, components);
+  }
+
+  /**
+   * Render the template, inserting each component as is. Placeholders without a value are left empty.
+   * The values don't go through the wrapper, so they aren't restricted or downsampled to its
+   * {@link Palette}, pass them through {@link MiniMessageWrapper#sanitize(Component)} first if they should be.
+   *
+   * @param values the values of the placeholders, by key
+   * @return the rendered component
+   */
+  public @NotNull Component renderComponents(final @NotNull Map<String, ? extends ComponentLike> values) {
+    return this.fill(this.skeleton, values);
+  }
+
+  private @NotNull Component fill(final @NotNull Component component,
+                                  final @NotNull Map<String, ? extends ComponentLike> values) {
+    if (component instanceof TextComponent) {
+      final String key = this.holes.get(((TextComponent) component).content());
+      if (key != null) {
+        final ComponentLike value = values.get(key);
+        return value == null ? Component.empty() : value.asComponent();
+      }
+    }
+
+    Component filled = component;
+    final List<Component> children = component.children();
+    if (!children.isEmpty()) {
+      List<Component> filledChildren = null;
+      for (int i = 0; i < children.size(); i++) {
+        final Component child = children.get(i);
+        final Component filledChild = this.fill(child, values);
+        if (filledChild != child && filledChildren == null) {
+          filledChildren = new ArrayList<>(children);
+        }
+        if (filledChildren != null) {
+          filledChildren.set(i, filledChild);
+        }
+      }
+      if (filledChildren != null) {
+        filled = filled.children(filledChildren);
+      }
+    }
+
+    final HoverEvent<?> hoverEvent = component.style().hoverEvent();
+    if (hoverEvent != null && hoverEvent.action() == HoverEvent.Action.SHOW_TEXT) {
+      final Component text = (Component) hoverEvent.value();
+      final Component filledText = this.fill(text, values);
+      if (filledText != text) {
+        filled = filled.hoverEvent(HoverEvent.showText(filledText));
+      }
+    }
+    return filled;
+  }
+}
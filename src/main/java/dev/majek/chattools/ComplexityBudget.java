@@ -0,0 +1,218 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * <p>Enforces a {@link MiniMessageWrapper}'s complexity budgets, so one malicious message can't
+ * make parsing expensive.</p>
+ * <p>Tags are counted on the sanitized string in one walk, without looking ahead, so the check
+ * is linear however the brackets are arranged. It counts what looks like a tag rather than what
+ * mini message will accept, which is only ever more strict.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class ComplexityBudget {
+
+  static final ComplexityBudget UNLIMITED = new ComplexityBudget(0, 0, 0, 0);
+
+  private final int maxInputLength, maxTags, maxNestingDepth, maxOutputNodes;
+
+  /**
+   * Create a new budget. A limit of 0 or less means unlimited.
+   */
+  ComplexityBudget(final int maxInputLength, final int maxTags, final int maxNestingDepth,
+                   final int maxOutputNodes) {
+    this.maxInputLength = maxInputLength > 0 ? maxInputLength : Integer.MAX_VALUE;
+    this.maxTags = maxTags > 0 ? maxTags : Integer.MAX_VALUE;
+    this.maxNestingDepth = maxNestingDepth > 0 ? maxNestingDepth : Integer.MAX_VALUE;
+    this.maxOutputNodes = maxOutputNodes > 0 ? maxOutputNodes : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Check the length of the input before anything is done with it.
+   *
+   * @param input the input
+   * @throws MiniMessageWrapper.BudgetExceededException if it's too long
+   */
+  void checkInput(final @NotNull CharSequence input) {
+    if (input.length() > this.maxInputLength) {
+      throw new MiniMessageWrapper.BudgetExceededException(
+          MiniMessageWrapper.BudgetExceededException.Budget.INPUT_LENGTH, this.maxInputLength);
+    }
+  }
+
+  /**
+   * Check the tags of a sanitized string before it's parsed.
+   *
+   * @param sanitized the sanitized string
+   * @throws MiniMessageWrapper.BudgetExceededException if it has too many tags or they're nested too deep
+   */
+  void checkTags(final @NotNull CharSequence sanitized) {
+    if (this.unlimitedTags()) {
+      return;
+    }
+    final TagCounter counter = new TagCounter(null);
+    for (int i = 0; i < sanitized.length(); i++) {
+      counter.accept(sanitized.charAt(i));
+    }
+  }
+
+  /**
+   * Wrap an output so the tags written to it are checked as they're written, counted the same way
+   * {@link #checkTags(CharSequence)} counts them. Nothing is written past the tag that goes over.
+   *
+   * @param out the output
+   * @return an output that checks the tags written to it
+   */
+  @NotNull Appendable checkingTags(final @NotNull Appendable out) {
+    return this.unlimitedTags() ? out : new TagCounter(out);
+  }
+
+  /**
+   * Check the tags counted so far by something that reads them itself.
+   *
+   * @param tags the number of tags so far
+   * @param depth how deep the tags are nested now
+   * @throws MiniMessageWrapper.BudgetExceededException if there are too many tags or they're nested too deep
+   */
+  void checkTags(final int tags, final int depth) {
+    if (tags > this.maxTags) {
+      throw new MiniMessageWrapper.BudgetExceededException(
+          MiniMessageWrapper.BudgetExceededException.Budget.TAGS, this.maxTags);
+    }
+    if (depth > this.maxNestingDepth) {
+      throw new MiniMessageWrapper.BudgetExceededException(
+          MiniMessageWrapper.BudgetExceededException.Budget.NESTING_DEPTH, this.maxNestingDepth);
+    }
+  }
+
+  /**
+   * Check the size of a parsed component.
+   *
+   * @param component the component
+   * @throws MiniMessageWrapper.BudgetExceededException if it has too many nodes
+   */
+  void checkOutput(final @NotNull Component component) {
+    if (this.maxOutputNodes != Integer.MAX_VALUE && Metrics.nodeCount(component) > this.maxOutputNodes) {
+      throw new MiniMessageWrapper.BudgetExceededException(
+          MiniMessageWrapper.BudgetExceededException.Budget.OUTPUT_NODES, this.maxOutputNodes);
+    }
+  }
+
+  private boolean unlimitedTags() {
+    return this.maxTags == Integer.MAX_VALUE && this.maxNestingDepth == Integer.MAX_VALUE;
+  }
+
+  /**
+   * Counts tags one character at a time, passing the characters on to an output if there is one.
+   */
+  private final class TagCounter implements Appendable {
+
+    private final @Nullable Appendable out;
+    private int tags = 0;
+    private int depth = 0;
+    // how many characters since the last unclosed bracket, or -1
+    private int open = -1;
+    // the first of those characters, enough to tell a closing tag or a reset
+    private final char[] head = new char[5];
+    private boolean escaped = false;
+
+    private TagCounter(final @Nullable Appendable out) {
+      this.out = out;
+    }
+
+    private void accept(final char c) {
+      if (this.escaped) {
+        this.escaped = false;
+      } else if (c == '\\') {
+        this.escaped = true;
+      } else if (c == '<') {
+        this.open = 0;
+        return;
+      } else if (c == '>' && this.open >= 0) {
+        this.tags++;
+        if (this.open > 0 && this.head[0] == '/') {
+          this.depth = Math.max(0, this.depth - 1);
+        } else if (this.isReset()) {
+          this.depth = 0;
+        } else {
+          this.depth++;
+        }
+        ComplexityBudget.this.checkTags(this.tags, this.depth);
+        this.open = -1;
+        return;
+      }
+      if (this.open >= 0) {
+        if (this.open < this.head.length) {
+          this.head[this.open] = c;
+        }
+        this.open++;
+      }
+    }
+
+    // reset closes every open tag
+    private boolean isReset() {
+      if (this.open == 1) {
+        return this.head[0] == 'r';
+      }
+      return this.open == 5 && this.head[0] == 'r' && this.head[1] == 'e' && this.head[2] == 's'
+          && this.head[3] == 'e' && this.head[4] == 't';
+    }
+
+    @Override
+    public @NotNull Appendable append(final CharSequence csq) throws IOException {
+      final CharSequence sequence = csq == null ? "null" : csq;
+      return this.append(sequence, 0, sequence.length());
+    }
+
+    @Override
+    public @NotNull Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+      final CharSequence sequence = csq == null ? "null" : csq;
+      for (int i = start; i < end; i++) {
+        this.accept(sequence.charAt(i));
+      }
+      if (this.out != null) {
+        this.out.append(sequence, start, end);
+      }
+      return this;
+    }
+
+    @Override
+    public @NotNull Appendable append(final char c) throws IOException {
+      this.accept(c);
+      if (this.out != null) {
+        this.out.append(c);
+      }
+      return this;
+    }
+  }
+}
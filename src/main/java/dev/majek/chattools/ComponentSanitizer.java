@@ -0,0 +1,183 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Applies a {@link MiniMessageWrapper}'s restrictions to a component that's already been built,
+ * so it doesn't have to be serialized and parsed again.</p>
+ * <p>Gradients and rainbows are only hex colors once they're components, so they follow the hex
+ * color rules. If the wrapper downsamples, every color left is remapped to its palette too. Only what
+ * has to change is copied, a component that breaks no rules is returned as is
+ * and so is every clean part of one that does.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class ComponentSanitizer {
+
+  private final boolean hexColors, standardColors, advancedTransformations;
+  private final Set<NamedTextColor> removedColors;
+  private final Set<TextDecoration> removedTextDecorations;
+  private final Map<TextDecoration, TextDecoration.State> decorationStateMap;
+  private final ColorPolicy colorPolicy;
+  private final @Nullable Palette palette;
+
+  ComponentSanitizer(final boolean hexColors, final boolean standardColors, final boolean advancedTransformations,
+                     final @NotNull Set<NamedTextColor> removedColors,
+                     final @NotNull Map<TextDecoration, TextDecoration.State> decorationStateMap,
+                     final @NotNull ColorPolicy colorPolicy, final @Nullable Palette palette) {
+    this.hexColors = hexColors;
+    this.standardColors = standardColors;
+    this.advancedTransformations = advancedTransformations;
+    this.removedColors = removedColors;
+    this.removedTextDecorations = decorationStateMap.keySet();
+    this.decorationStateMap = decorationStateMap;
+    this.colorPolicy = colorPolicy;
+    this.palette = palette;
+  }
+
+  /**
+   * Sanitize a component according to this sanitizer's options. Removed decorations are
+   * turned off on the root the same way they are for a parsed component.
+   *
+   * @param component the component to sanitize
+   * @return the sanitized component
+   */
+  @NotNull Component sanitize(final @NotNull Component component) {
+    final Component sanitized = this.visit(component, true);
+    return this.decorationStateMap.isEmpty() ? sanitized : sanitized.decorations(this.decorationStateMap);
+  }
+
+  /**
+   * Remap every color of a component to the nearest color of the palette, if there is one.
+   * The restrictions aren't applied, this is for components that were parsed with them.
+   *
+   * @param component the component to downsample
+   * @return the downsampled component
+   */
+  @NotNull Component downsample(final @NotNull Component component) {
+    return this.palette == null ? component : this.visit(component, false);
+  }
+
+  private @NotNull Component visit(final @NotNull Component component, final boolean restrict) {
+    Component sanitized = component;
+    final Style style = component.style();
+    final Style sanitizedStyle = this.sanitize(style, restrict);
+    if (sanitizedStyle != style) {
+      sanitized = sanitized.style(sanitizedStyle);
+    }
+
+    final List<Component> children = component.children();
+    if (!children.isEmpty()) {
+      List<Component> sanitizedChildren = null;
+      for (int i = 0; i < children.size(); i++) {
+        final Component child = children.get(i);
+        final Component sanitizedChild = this.visit(child, restrict);
+        if (sanitizedChild != child && sanitizedChildren == null) {
+          sanitizedChildren = new ArrayList<>(children);
+        }
+        if (sanitizedChildren != null) {
+          sanitizedChildren.set(i, sanitizedChild);
+        }
+      }
+      if (sanitizedChildren != null) {
+        sanitized = sanitized.children(sanitizedChildren);
+      }
+    }
+    return sanitized;
+  }
+
+  /**
+   * Sanitize one style.
+   *
+   * @param style the style
+   * @param restrict whether to apply the restrictions, or only downsample
+   * @return the sanitized style, the same instance if nothing changed
+   */
+  private @NotNull Style sanitize(final @NotNull Style style, final boolean restrict) {
+    Style.Builder builder = null;
+
+    TextColor color = style.color();
+    if (restrict && color != null && this.isBlocked(color)) {
+      builder = style.toBuilder().color(null);
+      color = null;
+    }
+    if (color != null && this.palette != null) {
+      final TextColor nearest = this.palette.nearest(color);
+      if (nearest != color) {
+        builder = (builder == null ? style.toBuilder() : builder).color(nearest);
+      }
+    }
+
+    if (restrict) {
+      for (TextDecoration decoration : this.removedTextDecorations) {
+        if (style.decoration(decoration) == TextDecoration.State.TRUE) {
+          builder = (builder == null ? style.toBuilder() : builder)
+              .decoration(decoration, TextDecoration.State.FALSE);
+        }
+      }
+    }
+
+    if (restrict && !this.advancedTransformations) {
+      if (style.clickEvent() != null || style.hoverEvent() != null || style.insertion() != null
+          || style.font() != null) {
+        builder = (builder == null ? style.toBuilder() : builder)
+            .clickEvent(null).hoverEvent(null).insertion(null).font(null);
+      }
+    } else {
+      final HoverEvent<?> hoverEvent = style.hoverEvent();
+      if (hoverEvent != null && hoverEvent.action() == HoverEvent.Action.SHOW_TEXT) {
+        final Component text = (Component) hoverEvent.value();
+        final Component sanitizedText = this.visit(text, restrict);
+        if (sanitizedText != text) {
+          builder = (builder == null ? style.toBuilder() : builder).hoverEvent(HoverEvent.showText(sanitizedText));
+        }
+      }
+    }
+
+    return builder == null ? style : builder.build();
+  }
+
+  private boolean isBlocked(final @Nullable TextColor color) {
+    if (color instanceof NamedTextColor) {
+      return !this.standardColors || this.removedColors.contains(color);
+    }
+    return color != null && (!this.hexColors || this.colorPolicy.isBlocked(color.value()));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>The lines of a {@link ConcurrentPagination}, stored in fixed size chunks like a
+ * {@link LineStore}.</p>
+ * <p>Writers append under a lock, then publish the new size. A line is never changed once it's
+ * published, so readers only read the size and never lock: every line below the size they read
+ * is there and will stay the same.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class ConcurrentLineStore {
+
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private final Object writeLock = new Object();
+  private volatile Component[][] chunks = new Component[4][];
+  // written after the lines it covers, reading it first makes them visible
+  private volatile int size = 0;
+
+  /**
+   * Append lines, all of them become visible to readers at once.
+   *
+   * @param lines the lines
+   */
+  void append(final @NotNull List<Component> lines) {
+    synchronized (this.writeLock) {
+      Component[][] chunks = this.chunks;
+      int size = this.size;
+      for (final Component line : lines) {
+        final int chunk = size >>> CHUNK_BITS;
+        if (chunk == chunks.length) {
+          // readers keep the old array, the chunks in it are the same
+          chunks = Arrays.copyOf(chunks, chunks.length * 2);
+          this.chunks = chunks;
+        }
+        if (chunks[chunk] == null) {
+          chunks[chunk] = new Component[CHUNK_SIZE];
+        }
+        chunks[chunk][size & CHUNK_MASK] = line;
+        size++;
+      }
+      this.size = size;
+    }
+  }
+
+  /**
+   * Get the number of published lines.
+   *
+   * @return the number of lines
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Get the lines published so far. Lines appended later aren't in it.
+   *
+   * @return the snapshot
+   */
+  @NotNull List<Component> snapshot() {
+    final int size = this.size;
+    return new Snapshot(this.chunks, size);
+  }
+
+  /**
+   * A read only view of the first lines of the store.
+   */
+  private static final class Snapshot extends AbstractList<Component> implements RandomAccess {
+
+    private final Component[][] chunks;
+    private final int size;
+
+    private Snapshot(final Component[][] chunks, final int size) {
+      this.chunks = chunks;
+      this.size = size;
+    }
+
+    @Override
+    public Component get(final int index) {
+      if (index < 0 || index >= this.size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+      }
+      return this.chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    @Override
+    public int size() {
+      return this.size;
+    }
+  }
+}
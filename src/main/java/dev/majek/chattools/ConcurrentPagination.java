@@ -0,0 +1,449 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * <p>A {@link Pagination} that lines can be added to from any thread while it's being rendered.</p>
+ * <p>Lines can only be appended. Each render works on a snapshot of the lines and the options
+ * taken when it starts, so the page counter, the buttons and the lines of a page always agree
+ * with each other, even while other threads add lines or change options. Rendering never waits
+ * for a writer, writers only wait for each other.</p>
+ *
+ * @author Majekdor
+ */
+public class ConcurrentPagination {
+
+  private final ConcurrentLineStore lines = new ConcurrentLineStore();
+  private final Component header;
+  private final String movePageCommand;
+  private final Object optionsLock = new Object();
+  private volatile Options options = new Options();
+
+  /**
+   * Create a new concurrent pagination.
+   *
+   * @param header the header for the top of the page
+   * @param movePageCommand the command for traversing pages of the pagination, you don't need to
+   *                        include the space, the space and page number will be appended
+   */
+  public ConcurrentPagination(final @NotNull Component header, final @NotNull String movePageCommand) {
+    this.header = header;
+    this.movePageCommand = movePageCommand.trim() + " ";
+  }
+
+  /**
+   * Add a line to this pagination. If the line is longer than the maximum width it
+   * will be cut into multiple lines, which are added all at once.
+   *
+   * @param line the line to add.
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination addLine(final @NotNull Component line) {
+    return this.addLines(List.of(line));
+  }
+
+  /**
+   * Add lines to this pagination. If a line is longer than the maximum width it
+   * will be cut into multiple lines. The lines become visible to renders all at once.
+   *
+   * @param lines the lines to add.
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination addLines(final @NotNull List<Component> lines) {
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
+    // measuring and cutting happens before the lock, so writers only wait for each other to append
+    final int maxChatWidth = this.options.maxChatWidth;
+    final List<Component> cut = new ArrayList<>(lines.size());
+    for (final Component line : lines) {
+      if (this.plainText(line).length() > maxChatWidth) {
+        cut.addAll(new TextComponentCutter(maxChatWidth - 5, maxChatWidth + 5).cutComponent(line));
+      } else {
+        cut.add(line);
+      }
+    }
+    this.lines.append(cut);
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.ADD_LINES, lines.size(), cut.size(), System.nanoTime() - start);
+    }
+    return this;
+  }
+
+  /**
+   * Add lines to this pagination. If a line is longer than the maximum width it
+   * will be cut into multiple lines. The lines become visible to renders all at once.
+   *
+   * @param lines the lines to add.
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination addLines(final @NotNull Component... lines) {
+    return this.addLines(List.of(lines));
+  }
+
+  /**
+   * Get the number of pages for this pagination right now.
+   *
+   * @return number of pages
+   */
+  public int numPages() {
+    return numPages(this.lines.size(), this.options.linesPerPage);
+  }
+
+  /**
+   * Render a page. This will return a list of lines for the page, including the
+   * header at the top and footer at the bottom. You can use {@link #sendPage(int, Audience)}
+   * to easily send a specific page to an audience.
+   *
+   * @param page the page to render
+   * @return list of lines for the desired page
+   * @throws Pagination.InvalidPageException if the page doesn't exist yet
+   */
+  public @NotNull List<Component> render(final @Range(from = 1, to = Integer.MAX_VALUE) int page) {
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
+    final List<Component> snapshot = this.lines.snapshot();
+    final Options options = this.options;
+    final int numPages = numPages(snapshot.size(), options.linesPerPage);
+    if (page > numPages) {
+      throw new Pagination.InvalidPageException();
+    }
+
+    final int firstLine = (page - 1) * options.linesPerPage;
+    final List<Component> body = snapshot.subList(firstLine,
+        Math.min(firstLine + options.linesPerPage, snapshot.size()));
+    final List<Component> rendered = new ArrayList<>(body.size() + 2);
+    rendered.add(options.buttons().header(page, numPages, this.movePageCommand, this.header,
+        options.pageCounterColor));
+    rendered.addAll(body);
+    if (options.footerVisible) {
+      rendered.add(options.footer);
+    }
+
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.RENDER, snapshot.size(), rendered.size(), System.nanoTime() - start);
+    }
+    return rendered;
+  }
+
+  /**
+   * Send a rendered page to an audience.
+   *
+   * @param page the page to render
+   * @param audience the audience to send the page to
+   */
+  public void sendPage(final @Range(from = 1, to = Integer.MAX_VALUE) int page, final @NotNull Audience audience) {
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
+    final List<Component> rendered = this.render(page);
+    for (Component line : rendered) {
+      audience.sendMessage(line);
+    }
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.SEND_PAGE, this.lines.size(), rendered.size(),
+          System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Get the lines added so far. This is a read only snapshot, lines added later aren't in it.
+   *
+   * @return the lines
+   */
+  public @NotNull List<Component> lines() {
+    return this.lines.snapshot();
+  }
+
+  /**
+   * Get the header for this pagination.
+   *
+   * @return the header
+   */
+  public @NotNull Component header() {
+    return this.header;
+  }
+
+  /**
+   * Get the footer for this pagination.
+   *
+   * @return the footer
+   */
+  public @NotNull Component footer() {
+    return this.options.footer;
+  }
+
+  /**
+   * Set the footer.
+   *
+   * @param footer the footer
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination footer(final @NotNull Component footer) {
+    final boolean visible = this.plainText(footer).length() > 0;
+    return this.update(options -> {
+      options.footer = footer;
+      options.footerVisible = visible;
+    });
+  }
+
+  /**
+   * Get the component that will be used as a button for traveling to the next page.
+   *
+   * @return the next page button
+   */
+  public @NotNull Component nextPageButton() {
+    return this.options.nextPageButton;
+  }
+
+  /**
+   * Set the component that will be used as a button for traveling to the next page.
+   *
+   * @param nextPageButton the next page button
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination nextPageButton(final @NotNull Component nextPageButton) {
+    return this.update(options -> options.nextPageButton = nextPageButton);
+  }
+
+  /**
+   * Get the component that will be used as a button for traveling to the previous page.
+   *
+   * @return the previous page button
+   */
+  public @NotNull Component prevPageButton() {
+    return this.options.prevPageButton;
+  }
+
+  /**
+   * Set the component that will be used as a button for traveling to the previous page.
+   *
+   * @param prevPageButton the previous page button
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination prevPageButton(final @NotNull Component prevPageButton) {
+    return this.update(options -> options.prevPageButton = prevPageButton);
+  }
+
+  /**
+   * Get the text color that will be used for valid buttons.
+   *
+   * @return the valid button color
+   */
+  public @NotNull TextColor validButtonColor() {
+    return this.options.validButtonColor;
+  }
+
+  /**
+   * Set the text color that will be used for valid buttons.
+   *
+   * @param validButtonColor the valid button color
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination validButtonColor(final @NotNull TextColor validButtonColor) {
+    return this.update(options -> options.validButtonColor = validButtonColor);
+  }
+
+  /**
+   * Get the text color that will be used for invalid buttons.
+   *
+   * @return the invalid button color
+   */
+  public @NotNull TextColor invalidButtonColor() {
+    return this.options.invalidButtonColor;
+  }
+
+  /**
+   * Set the text color that will be used for invalid buttons.
+   *
+   * @param invalidButtonColor the invalid button color
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination invalidButtonColor(final @NotNull TextColor invalidButtonColor) {
+    return this.update(options -> options.invalidButtonColor = invalidButtonColor);
+  }
+
+  /**
+   * Get the text color that will be used for the page counter.
+   *
+   * @return the page counter color
+   */
+  public @NotNull TextColor pageCounterColor() {
+    return this.options.pageCounterColor;
+  }
+
+  /**
+   * Set the text color that will be used for the page counter.
+   *
+   * @param pageCounterColor the page counter color
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination pageCounterColor(final @NotNull TextColor pageCounterColor) {
+    return this.update(options -> options.pageCounterColor = pageCounterColor);
+  }
+
+  /**
+   * Get the text color that will be used for hover text.
+   *
+   * @return the hover text color
+   */
+  public @NotNull TextColor hoverTextColor() {
+    return this.options.hoverTextColor;
+  }
+
+  /**
+   * Set the text color that will be used for hover text.
+   *
+   * @param hoverTextColor the hover text color
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination hoverTextColor(final @NotNull TextColor hoverTextColor) {
+    return this.update(options -> options.hoverTextColor = hoverTextColor);
+  }
+
+  /**
+   * Get the number of lines per page, not counting the header or footer.
+   *
+   * @return the lines per page
+   */
+  public int linesPerPage() {
+    return this.options.linesPerPage;
+  }
+
+  /**
+   * Set the number of lines per page, not counting the header or footer.
+   *
+   * @param linesPerPage the lines per page
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination linesPerPage(final @Range(from = 0, to = Integer.MAX_VALUE) int linesPerPage) {
+    return this.update(options -> options.linesPerPage = linesPerPage);
+  }
+
+  /**
+   * Get the maximum amount of characters allowed per line.
+   * Lines exceeding this value will be cut into separate lines.
+   *
+   * @return the max chat width
+   */
+  public int maxChatWidth() {
+    return this.options.maxChatWidth;
+  }
+
+  /**
+   * Set the maximum amount of characters allowed per line. Lines exceeding this value will be
+   * cut into separate lines, this only applies to lines added after it's set.
+   *
+   * @param maxChatWidth the max chat width
+   * @return this pagination
+   */
+  public @NotNull ConcurrentPagination maxChatWidth(final @Range(from = 0, to = Integer.MAX_VALUE) int maxChatWidth) {
+    return this.update(options -> options.maxChatWidth = maxChatWidth);
+  }
+
+  /**
+   * Publish a copy of the options with a change made to it, renders that already started keep the old ones.
+   *
+   * @param change the change
+   * @return this pagination
+   */
+  private @NotNull ConcurrentPagination update(final @NotNull Consumer<Options> change) {
+    synchronized (this.optionsLock) {
+      final Options options = new Options(this.options);
+      change.accept(options);
+      this.options = options;
+    }
+    return this;
+  }
+
+  private static int numPages(final int lines, final int linesPerPage) {
+    return (int) Math.ceil((double) lines / linesPerPage);
+  }
+
+  /**
+   * Serialize a component to plain text via the {@link PlainTextComponentSerializer}.
+   *
+   * @param component the component
+   * @return component content
+   */
+  private @NotNull String plainText(final @NotNull Component component) {
+    return PlainTextComponentSerializer.plainText().serialize(component);
+  }
+
+  /**
+   * The options of the pagination. They're only changed before they're published, after that a
+   * copy is made for every change.
+   */
+  private static final class Options {
+
+    private Component footer = Component.empty();
+    private boolean footerVisible = false;
+    private Component nextPageButton = Component.text("Next Page »");
+    private Component prevPageButton = Component.text("« Prev Page");
+    private TextColor validButtonColor = NamedTextColor.GREEN;
+    private TextColor invalidButtonColor = NamedTextColor.RED;
+    private TextColor pageCounterColor = NamedTextColor.GOLD;
+    private TextColor hoverTextColor = NamedTextColor.GRAY;
+    private int linesPerPage = 8;
+    private int maxChatWidth = 55;
+    // built by the first render that needs them, at worst twice when two race for it
+    private Pagination.Buttons buttons = null;
+
+    private Options() {
+    }
+
+    private Options(final @NotNull Options options) {
+      this.footer = options.footer;
+      this.footerVisible = options.footerVisible;
+      this.nextPageButton = options.nextPageButton;
+      this.prevPageButton = options.prevPageButton;
+      this.validButtonColor = options.validButtonColor;
+      this.invalidButtonColor = options.invalidButtonColor;
+      this.pageCounterColor = options.pageCounterColor;
+      this.hoverTextColor = options.hoverTextColor;
+      this.linesPerPage = options.linesPerPage;
+      this.maxChatWidth = options.maxChatWidth;
+    }
+
+    private @NotNull Pagination.Buttons buttons() {
+      Pagination.Buttons buttons = this.buttons;
+      if (buttons == null) {
+        buttons = new Pagination.Buttons(this.prevPageButton, this.nextPageButton, this.validButtonColor,
+            this.invalidButtonColor, this.hoverTextColor);
+        this.buttons = buttons;
+      }
+      return buttons;
+    }
+  }
+}
@@ -0,0 +1,327 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.util.HSVLike;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Render text as a gradient or rainbow, like mini message's {@code <gradient>} and {@code <rainbow>}
+ * tags, for text built in code such as rank prefixes and nicknames.</p>
+ * <p>Every character gets its own color, which is what makes these expensive. The styles for each
+ * (colors, phase, length) are worked out once and kept in a bounded cache, so rendering the same
+ * gradient again skips the interpolation and every render shares the same {@link Style} instances.</p>
+ * <p>The phase here shifts the colors along the text and bounces back at the ends, which isn't the
+ * same as the phase of mini message's tags. The {@code <gradient>} and {@code <rainbow>} tags of a
+ * {@link MiniMessageWrapper} are still rendered by mini message, only the styles of their characters
+ * are swapped for shared instances once parsed.</p>
+ *
+ * @author Majekdor
+ */
+public final class Gradients {
+
+  private static final StyleCache CACHE = new StyleCache(512, 1 << 16);
+  private static final SharedStyles SHARED = new SharedStyles(4096);
+
+  private Gradients() {
+  }
+
+  /**
+   * Render text as a gradient through the colors.
+   *
+   * @param text the text
+   * @param colors the colors, at least two
+   * @return the component
+   */
+  public static @NotNull Component gradient(final @NotNull String text, final @NotNull TextColor... colors) {
+    return gradient(text, 0, colors);
+  }
+
+  /**
+   * Render text as a gradient through the colors, shifted along the text by the phase.
+   *
+   * @param text the text
+   * @param phase how far to shift the gradient, from -1 to 1
+   * @param colors the colors, at least two
+   * @return the component
+   */
+  public static @NotNull Component gradient(final @NotNull String text, final @Range(from = -1, to = 1) float phase,
+                                            final @NotNull TextColor... colors) {
+    if (colors.length < 2) {
+      throw new IllegalArgumentException("A gradient needs at least two colors");
+    }
+    final int[] stops = new int[colors.length];
+    for (int i = 0; i < colors.length; i++) {
+      stops[i] = colors[i].value();
+    }
+    return render(text, CACHE.get(new Key(stops, phase, text.codePointCount(0, text.length()))));
+  }
+
+  /**
+   * Render text as a rainbow.
+   *
+   * @param text the text
+   * @return the component
+   */
+  public static @NotNull Component rainbow(final @NotNull String text) {
+    return rainbow(text, 0);
+  }
+
+  /**
+   * Render text as a rainbow, starting the given number of characters along.
+   *
+   * @param text the text
+   * @param phase how many characters to shift the rainbow by
+   * @return the component
+   */
+  public static @NotNull Component rainbow(final @NotNull String text, final int phase) {
+    return render(text, CACHE.get(new Key(null, phase, text.codePointCount(0, text.length()))));
+  }
+
+  /**
+   * Get the statistics of the cache of rendered styles.
+   *
+   * @return cache statistics
+   */
+  public static @NotNull CacheStats cacheStats() {
+    return CACHE.stats();
+  }
+
+  /**
+   * Swap the style of every single colored character for a shared instance, which is what mini
+   * message's gradient and rainbow tags split text into. Everything else is returned as it is.
+   *
+   * @param component the parsed component
+   * @return the component with shared styles
+   */
+  static @NotNull Component shareStyles(final @NotNull Component component) {
+    final List<Component> children = component.children();
+    if (children.isEmpty()) {
+      if (!(component instanceof TextComponent) || component.color() == null) {
+        return component;
+      }
+      final String content = ((TextComponent) component).content();
+      if (content.isEmpty() || content.offsetByCodePoints(0, 1) != content.length()) {
+        return component;
+      }
+      final Style shared = SHARED.share(component.style());
+      return shared == component.style() ? component : component.style(shared);
+    }
+    List<Component> shared = null;
+    for (int i = 0; i < children.size(); i++) {
+      final Component child = shareStyles(children.get(i));
+      if (child != children.get(i) && shared == null) {
+        shared = new ArrayList<>(children);
+      }
+      if (shared != null) {
+        shared.set(i, child);
+      }
+    }
+    return shared == null ? component : component.children(shared);
+  }
+
+  private static @NotNull Component render(final @NotNull String text, final @NotNull Style @NotNull [] styles) {
+    final TextComponent.Builder builder = Component.text();
+    int index = 0;
+    for (int i = 0; i < text.length(); ) {
+      final int end = text.offsetByCodePoints(i, 1);
+      builder.append(Component.text(text.substring(i, end), styles[index++]));
+      i = end;
+    }
+    return builder.build();
+  }
+
+  /**
+   * Work out the style of every character for a key.
+   */
+  private static @NotNull Style @NotNull [] styles(final @NotNull Key key) {
+    final Style[] styles = new Style[key.length];
+    final int[] colors = new int[key.length];
+    for (int i = 0; i < key.length; i++) {
+      colors[i] = key.stops == null ? rainbowColor(i, key.length, (int) key.phase)
+          : gradientColor(i, key.length, key.phase, key.stops);
+      // neighbours often end up the same color, so they share a style too
+      styles[i] = i > 0 && colors[i] == colors[i - 1] ? styles[i - 1] : Style.style(TextColor.color(colors[i]));
+    }
+    return styles;
+  }
+
+  private static int gradientColor(final int index, final int length, final float phase, final int @NotNull [] stops) {
+    float position = length == 1 ? 0 : (float) index / (length - 1);
+    // shift along the text, bouncing back at the ends so the colors stay continuous
+    position = Math.abs(position + phase);
+    if (position > 1) {
+      position = 2 - position;
+    }
+    final float scaled = position * (stops.length - 1);
+    final int stop = Math.min((int) scaled, stops.length - 2);
+    return lerp(scaled - stop, stops[stop], stops[stop + 1]);
+  }
+
+  private static int rainbowColor(final int index, final int length, final int phase) {
+    final float hue = (float) Math.floorMod(index + phase, length) / length;
+    return TextColor.color(HSVLike.hsvLike(hue, 1f, 1f)).value();
+  }
+
+  private static int lerp(final float t, final int from, final int to) {
+    final int r = channel(t, from >> 16, to >> 16);
+    final int g = channel(t, from >> 8, to >> 8);
+    final int b = channel(t, from, to);
+    return (r << 16) | (g << 8) | b;
+  }
+
+  private static int channel(final float t, final int from, final int to) {
+    final int a = from & 0xFF;
+    final int b = to & 0xFF;
+    return Math.round(a + t * (b - a));
+  }
+
+  /**
+   * What a rendered sequence of styles depends on. The stops are null for a rainbow.
+   */
+  private static final class Key {
+
+    private final int[] stops;
+    private final float phase;
+    private final int length;
+    private final int hash;
+
+    private Key(final int[] stops, final float phase, final int length) {
+      this.stops = stops;
+      this.phase = phase;
+      this.length = length;
+      this.hash = 31 * (31 * Arrays.hashCode(stops) + Float.hashCode(phase)) + length;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) return true;
+      if (!(other instanceof Key)) return false;
+      final Key that = (Key) other;
+      return this.length == that.length && Float.compare(this.phase, that.phase) == 0
+          && Arrays.equals(this.stops, that.stops);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  /**
+   * A bounded, least recently used cache of rendered styles. It's bounded by the number of entries and
+   * by the number of styles in all of them, so a few very long texts can't pin a lot of memory. Text
+   * longer than the whole bound is rendered every time instead.
+   */
+  private static final class StyleCache {
+
+    private final Map<Key, Style[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maximumEntries;
+    private final int maximumLength;
+    private int length = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+
+    private StyleCache(final int maximumEntries, final int maximumLength) {
+      this.maximumEntries = maximumEntries;
+      this.maximumLength = maximumLength;
+    }
+
+    private @NotNull Style @NotNull [] get(final @NotNull Key key) {
+      synchronized (this) {
+        final Style[] cached = this.entries.get(key);
+        if (cached != null) {
+          this.hits.increment();
+          return cached;
+        }
+      }
+
+      this.misses.increment();
+      final long start = System.nanoTime();
+      final Style[] styles = styles(key);
+      this.loadTime.add(System.nanoTime() - start);
+
+      if (styles.length > this.maximumLength) {
+        return styles;
+      }
+      synchronized (this) {
+        final Style[] replaced = this.entries.put(key, styles);
+        this.length += styles.length - (replaced == null ? 0 : replaced.length);
+        final Iterator<Style[]> eldest = this.entries.values().iterator();
+        while (this.entries.size() > this.maximumEntries || this.length > this.maximumLength) {
+          this.length -= eldest.next().length;
+          eldest.remove();
+          this.evictions.increment();
+        }
+      }
+      return styles;
+    }
+
+    private @NotNull CacheStats stats() {
+      final int size;
+      synchronized (this) {
+        size = this.entries.size();
+      }
+      return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.loadTime.sum(), size);
+    }
+  }
+
+  /**
+   * A bounded, least recently used set of styles, each equal style handed out as the same instance.
+   */
+  private static final class SharedStyles {
+
+    private final Map<Style, Style> styles;
+
+    private SharedStyles(final int maximumStyles) {
+      this.styles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Style, Style> eldest) {
+          return this.size() > maximumStyles;
+        }
+      };
+    }
+
+    private synchronized @NotNull Style share(final @NotNull Style style) {
+      final Style shared = this.styles.putIfAbsent(style, style);
+      return shared == null ? style : shared;
+    }
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Parses input without any mini message tags straight into a {@link Component}.</p>
+ * <p>The only tags in such input are the ones the {@link StringSanitizer} writes for legacy codes, so
+ * instead of writing the expanded string and having {@link net.kyori.adventure.text.minimessage.MiniMessage}
+ * tokenize it again, this sits where the sanitizer writes and turns each tag into a component as it's
+ * written. Every restriction still applies since it's the sanitizer that decides what's written. Tags
+ * are nested and the tree is compacted like mini message does, so the result is the same.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class LegacyFastPath implements Appendable {
+
+  private static final String RESET = "<reset>";
+  private static final String HEX_OPEN = "<#";
+
+  // the style of every tag written for a legacy code
+  private static final Map<String, Style> TAG_STYLES = new HashMap<>();
+
+  static {
+    MiniMessageWrapperImpl.CHAR_COLORS.values().forEach(tag -> {
+      final String name = tag.substring(1, tag.length() - 1);
+      final NamedTextColor color = NamedTextColor.NAMES.value(name);
+      final TextDecoration decoration = TextDecoration.NAMES.value(name);
+      if (color != null) {
+        TAG_STYLES.put(tag, Style.style(color));
+      } else if (decoration != null) {
+        TAG_STYLES.put(tag, Style.style(decoration));
+      }
+    });
+  }
+
+  private final ComplexityBudget budget;
+  private final TextComponent.Builder root = Component.text();
+  // the open tags, innermost first, with the root at the bottom
+  private final Deque<TextComponent.Builder> open = new ArrayDeque<>();
+  private final StringBuilder text = new StringBuilder();
+  private boolean inHex = false;
+  private int hex = 0;
+  private int tags = 0;
+  // the length of what the sanitizer wrote, as if it had been written to a string
+  private int written = 0;
+
+  private LegacyFastPath(final @NotNull ComplexityBudget budget) {
+    this.budget = budget;
+    this.open.push(this.root);
+  }
+
+  /**
+   * Whether the input can take the fast path, so it has no tags and no escapes.
+   *
+   * @param input the input
+   * @return whether it can be parsed directly
+   */
+  static boolean applies(final @NotNull CharSequence input) {
+    for (int i = 0; i < input.length(); i++) {
+      final char c = input.charAt(i);
+      if (c == '<' || c == '\\') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parse input the fast path {@link #applies(CharSequence) applies} to.
+   *
+   * @param sanitizer the sanitizer with the wrapper's restrictions
+   * @param budget the wrapper's complexity budget
+   * @param input the input
+   * @return the component
+   */
+  static @NotNull Component parse(final @NotNull StringSanitizer sanitizer, final @NotNull ComplexityBudget budget,
+                                  final @NotNull String input) {
+    budget.checkInput(input);
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
+    final LegacyFastPath path = new LegacyFastPath(budget);
+    try {
+      sanitizer.sanitize(input, path);
+    } catch (IOException ex) {
+      // this never throws
+      throw new UncheckedIOException(ex);
+    }
+    // the sanitizer still ran, so it's recorded like mmString would have
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.SANITIZE, input.length(), path.written, System.nanoTime() - start);
+    }
+    return path.build();
+  }
+
+  @Override
+  public @NotNull Appendable append(final CharSequence csq) {
+    // whole tags are written in one go, except hex colors which are written in pieces
+    final Style style = TAG_STYLES.get(csq);
+    if (style != null) {
+      this.written += csq.length();
+      this.openTag(style);
+    } else if (RESET.contentEquals(csq)) {
+      this.written += csq.length();
+      this.reset();
+    } else if (HEX_OPEN.contentEquals(csq)) {
+      this.written += csq.length();
+      this.inHex = true;
+      this.hex = 0;
+    } else {
+      this.append(csq, 0, csq.length());
+    }
+    return this;
+  }
+
+  @Override
+  public @NotNull Appendable append(final CharSequence csq, final int start, final int end) {
+    for (int i = start; i < end; i++) {
+      this.append(csq.charAt(i));
+    }
+    return this;
+  }
+
+  @Override
+  public @NotNull Appendable append(final char c) {
+    this.written++;
+    if (!this.inHex) {
+      this.text.append(c);
+    } else if (c == '>') {
+      this.inHex = false;
+      this.openTag(Style.style(TextColor.color(this.hex)));
+    } else {
+      this.hex = (this.hex << 4) | Character.digit(c, 16);
+    }
+    return this;
+  }
+
+  private void openTag(final @NotNull Style style) {
+    this.flushText();
+    this.budget.checkTags(++this.tags, this.open.size());
+    this.open.push(Component.text().style(style));
+  }
+
+  private void reset() {
+    this.flushText();
+    this.budget.checkTags(++this.tags, 0);
+    this.closeAll();
+  }
+
+  private void flushText() {
+    if (this.text.length() > 0) {
+      this.open.peek().append(Component.text(this.text.toString()));
+      this.text.setLength(0);
+    }
+  }
+
+  private void closeAll() {
+    while (this.open.size() > 1) {
+      final Component tag = this.open.pop().build();
+      this.open.peek().append(tag);
+    }
+  }
+
+  private @NotNull Component build() {
+    this.flushText();
+    this.closeAll();
+    return this.root.build().compact();
+  }
+}
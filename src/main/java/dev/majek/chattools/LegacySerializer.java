@@ -0,0 +1,336 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.KeybindComponent;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.TranslatableComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <p>Serialize components into legacy strings, the reverse of how {@link MiniMessageWrapper} reads
+ * legacy codes. This is for old clients, consoles and bridges to other platforms.</p>
+ * <p>The tree is walked once, tracking the style only as a color and a set of flags, and only what
+ * changes between one piece of text and the next is written. Nothing is concatenated per component.</p>
+ * <p>When codes start with '&amp;', text that would be read back as a code or a tag is escaped with a
+ * backslash, so '&amp;c' in a player's message stays text, and a backslash that would escape what
+ * comes after it is written as two. The game has no escape for '§', so with any other character
+ * text is written as is. Translatable and keybind components are written as their key, since
+ * there's no legacy form for them.</p>
+ *
+ * @author Majekdor
+ */
+public final class LegacySerializer {
+
+  private static final LegacySerializer AMPERSAND = new LegacySerializer('&', HexFormat.SHORT);
+  private static final LegacySerializer SECTION = new LegacySerializer('§', HexFormat.SPIGOT);
+
+  // decorations in the order their codes are written, and those codes
+  private static final TextDecoration[] DECORATIONS = {TextDecoration.OBFUSCATED, TextDecoration.BOLD,
+      TextDecoration.STRIKETHROUGH, TextDecoration.UNDERLINED, TextDecoration.ITALIC};
+  private static final char[] DECORATION_CODES = {'k', 'l', 'm', 'n', 'o'};
+
+  // builders are reused by each thread, one that grew past this is let go instead
+  private static final int MAX_REUSED_CAPACITY = 1 << 16;
+  private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+  private final char character;
+  private final HexFormat hexFormat;
+
+  /**
+   * Create a new serializer.
+   *
+   * @param character the character codes start with, usually '&amp;' or '§'
+   * @param hexFormat how to write colors that aren't one of the named colors
+   */
+  public LegacySerializer(final char character, final @NotNull HexFormat hexFormat) {
+    this.character = character;
+    this.hexFormat = hexFormat;
+  }
+
+  /**
+   * Get a serializer using '&amp;' that writes hex colors as '&amp;#rrggbb', the way
+   * {@link MiniMessageWrapper#legacy()} reads them.
+   *
+   * @return the serializer
+   */
+  public static @NotNull LegacySerializer ampersand() {
+    return AMPERSAND;
+  }
+
+  /**
+   * Get a serializer using '§' that writes hex colors as spigot's '§x§r§r§g§g§b§b', the way
+   * the game itself reads them.
+   *
+   * @return the serializer
+   */
+  public static @NotNull LegacySerializer section() {
+    return SECTION;
+  }
+
+  /**
+   * Serialize a component into a legacy string.
+   *
+   * @param component the component
+   * @return the legacy string
+   */
+  public @NotNull String serialize(final @NotNull Component component) {
+    StringBuilder builder = BUILDER.get();
+    if (builder.capacity() > MAX_REUSED_CAPACITY) {
+      builder = new StringBuilder();
+      BUILDER.set(builder);
+    }
+    builder.setLength(0);
+    this.serialize(component, builder);
+    return builder.toString();
+  }
+
+  /**
+   * Serialize a component into a legacy string, appending it to the builder.
+   *
+   * @param component the component
+   * @param out the builder to append to
+   */
+  public void serialize(final @NotNull Component component, final @NotNull StringBuilder out) {
+    new Writer(out).write(component, -1, 0);
+  }
+
+  /**
+   * Get the character codes start with.
+   *
+   * @return the character
+   */
+  public char character() {
+    return this.character;
+  }
+
+  /**
+   * Get how colors that aren't one of the named colors are written.
+   *
+   * @return the hex format
+   */
+  public @NotNull HexFormat hexFormat() {
+    return this.hexFormat;
+  }
+
+  /**
+   * How colors that aren't one of the {@link NamedTextColor}s are written.
+   */
+  public enum HexFormat {
+    /**
+     * As '&amp;#rrggbb'.
+     */
+    SHORT,
+    /**
+     * As spigot's '&amp;x&amp;r&amp;r&amp;g&amp;g&amp;b&amp;b'.
+     */
+    SPIGOT,
+    /**
+     * As the nearest named color, for clients without hex colors.
+     */
+    DOWNSAMPLE
+  }
+
+  /**
+   * The state of one serialization, what's been written so far.
+   */
+  private final class Writer {
+
+    private final StringBuilder out;
+    // the color written last as rgb, or -1 if none, and the decorations written since as flags
+    private int color = -1;
+    private int decorations = 0;
+
+    private Writer(final @NotNull StringBuilder out) {
+      this.out = out;
+    }
+
+    /**
+     * Write a component and its children.
+     *
+     * @param component the component
+     * @param parentColor the color inherited from the parent, or -1
+     * @param parentDecorations the decorations inherited from the parent
+     */
+    private void write(final @NotNull Component component, final int parentColor, final int parentDecorations) {
+      final Style style = component.style();
+      final TextColor textColor = style.color();
+      final int color = textColor == null ? parentColor : this.written(textColor);
+      int decorations = parentDecorations;
+      for (int i = 0; i < DECORATIONS.length; i++) {
+        final TextDecoration.State state = style.decoration(DECORATIONS[i]);
+        if (state == TextDecoration.State.TRUE) {
+          decorations |= 1 << i;
+        } else if (state == TextDecoration.State.FALSE) {
+          decorations &= ~(1 << i);
+        }
+      }
+
+      final String content;
+      if (component instanceof TextComponent) {
+        content = ((TextComponent) component).content();
+      } else if (component instanceof TranslatableComponent) {
+        content = ((TranslatableComponent) component).key();
+      } else if (component instanceof KeybindComponent) {
+        content = ((KeybindComponent) component).keybind();
+      } else {
+        content = "";
+      }
+      if (!content.isEmpty()) {
+        this.change(color, decorations);
+        this.text(content);
+      }
+      for (Component child : component.children()) {
+        this.write(child, color, decorations);
+      }
+    }
+
+    /**
+     * Write the codes to get from the style written last to this one.
+     */
+    private void change(final int color, final int decorations) {
+      if (color == this.color && (this.decorations & ~decorations) == 0) {
+        // only decorations were added, those can be written on top
+        this.writeDecorations(decorations & ~this.decorations);
+      } else {
+        // a color code clears decorations, so the new color and all decorations are written
+        if (color == -1) {
+          this.code('r');
+        } else {
+          this.writeColor(color);
+        }
+        this.writeDecorations(decorations);
+      }
+      this.color = color;
+      this.decorations = decorations;
+    }
+
+    /**
+     * Write text, escaping what {@link MiniMessageWrapper#legacy()} would read as formatting.
+     */
+    private void text(final @NotNull String content) {
+      if (character != '&') {
+        this.out.append(content);
+        return;
+      }
+      for (int i = 0; i < content.length(); i++) {
+        final char c = content.charAt(i);
+        if (c == '<' || (c == '&' && i + 1 < content.length() && this.isCode(content, i))
+            || (c == '\\' && this.escapes(content, i + 1))) {
+          this.out.append('\\');
+        }
+        this.out.append(c);
+      }
+    }
+
+    private void writeColor(final int rgb) {
+      final NamedTextColor named = NamedTextColor.namedColor(rgb);
+      if (named != null) {
+        this.code(MiniMessageWrapperImpl.legacyCodeFromNamed(named));
+      } else if (hexFormat == HexFormat.SHORT) {
+        this.out.append(character).append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+          this.out.append(Character.forDigit((rgb >> shift) & 0xF, 16));
+        }
+      } else {
+        this.code('x');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+          this.code(Character.forDigit((rgb >> shift) & 0xF, 16));
+        }
+      }
+    }
+
+    private void writeDecorations(final int decorations) {
+      for (int i = 0; i < DECORATIONS.length; i++) {
+        if ((decorations & (1 << i)) != 0) {
+          this.code(DECORATION_CODES[i]);
+        }
+      }
+    }
+
+    private void code(final char code) {
+      this.out.append(character).append(code);
+    }
+
+    /**
+     * Whether a backslash before the index would escape something, so it needs escaping itself.
+     * At the end of the text it would escape the code the next text may start with.
+     */
+    private boolean escapes(final @NotNull String content, final int index) {
+      if (index == content.length()) {
+        return true;
+      }
+      final char c = content.charAt(index);
+      return c == '<' || c == '\\' || (c == '&' && index + 1 < content.length() && this.isCode(content, index));
+    }
+
+    /**
+     * Whether the '&amp;' at the index is read as a code, or as the start of a hex code.
+     */
+    private boolean isCode(final @NotNull String content, final int index) {
+      final char c = content.charAt(index + 1);
+      if ((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'l' && c <= 'o') || c == 'r') {
+        return true;
+      }
+      if (c == '#') {
+        return isHexDigits(content, index + 2, 3, 1);
+      }
+      return c == 'x' && isHexDigits(content, index + 2, 6, 2);
+    }
+
+    /**
+     * Whether there are hex digits at the index, each after a code character if the stride is 2.
+     */
+    private boolean isHexDigits(final @NotNull String content, final int index, final int count, final int stride) {
+      if (index + count * stride > content.length()) {
+        return false;
+      }
+      for (int i = index; i < index + count * stride; i += stride) {
+        if ((stride == 2 && content.charAt(i) != '&') || !isHexDigit(content.charAt(i + stride - 1))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isHexDigit(final char c) {
+      return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * Get the rgb of the color as it will be written, which for downsampling is the nearest named color.
+     */
+    private int written(final @NotNull TextColor color) {
+      if (hexFormat == HexFormat.DOWNSAMPLE && !(color instanceof NamedTextColor)) {
+        return NamedTextColor.nearestTo(color).value();
+      }
+      return color.value();
+    }
+  }
+}
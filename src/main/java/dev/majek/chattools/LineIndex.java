@@ -0,0 +1,177 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * <p>An inverted index over the plain text of the lines of a {@link Pagination}, from each word
+ * to the lines it's in. A line that was cut into several is indexed whole, under its first part.</p>
+ * <p>Words are runs of letters and digits, compared ignoring case. Lines are added in order, so
+ * the lines of a word are already sorted and adding one is just an append. Words are kept sorted
+ * too, so all the words starting with a prefix are next to each other.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class LineIndex {
+
+  private final TreeMap<String, Postings> words = new TreeMap<>();
+
+  /**
+   * Index a line. Lines have to be added in order.
+   *
+   * @param line the index of the line
+   * @param text the plain text of the line
+   */
+  void add(final int line, final @NotNull CharSequence text) {
+    for (final String word : words(text)) {
+      this.words.computeIfAbsent(word, w -> new Postings()).add(line);
+    }
+  }
+
+  /**
+   * Find the lines that have a word starting with every word of the query.
+   *
+   * @param query the query
+   * @return the sorted indexes of the lines, or null if the query has no words
+   */
+  int @Nullable [] search(final @NotNull CharSequence query) {
+    final List<String> prefixes = words(query);
+    if (prefixes.isEmpty()) {
+      return null;
+    }
+    int[] lines = null;
+    for (final String prefix : prefixes) {
+      final int[] matches = this.matches(prefix);
+      lines = lines == null ? matches : intersect(lines, matches);
+      if (lines.length == 0) {
+        break;
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Get the lines with a word starting with a prefix.
+   *
+   * @param prefix the prefix
+   * @return the sorted indexes of the lines
+   */
+  private int @NotNull [] matches(final @NotNull String prefix) {
+    final NavigableMap<String, Postings> words = this.words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    if (words.size() == 1) {
+      return words.firstEntry().getValue().toArray();
+    }
+    int size = 0;
+    for (final Postings postings : words.values()) {
+      size += postings.size;
+    }
+    int[] lines = new int[size];
+    int offset = 0;
+    for (final Postings postings : words.values()) {
+      System.arraycopy(postings.lines, 0, lines, offset, postings.size);
+      offset += postings.size;
+    }
+    // a line can have more than one of the words
+    Arrays.sort(lines);
+    int distinct = 0;
+    for (int i = 0; i < lines.length; i++) {
+      if (i == 0 || lines[i] != lines[i - 1]) {
+        lines[distinct++] = lines[i];
+      }
+    }
+    return distinct == lines.length ? lines : Arrays.copyOf(lines, distinct);
+  }
+
+  private static int @NotNull [] intersect(final int @NotNull [] a, final int @NotNull [] b) {
+    final int[] lines = new int[Math.min(a.length, b.length)];
+    int size = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        lines[size++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(lines, size);
+  }
+
+  /**
+   * Split text into lower case words.
+   *
+   * @param text the text
+   * @return the words
+   */
+  private static @NotNull List<String> words(final @NotNull CharSequence text) {
+    final List<String> words = new ArrayList<>();
+    final StringBuilder word = new StringBuilder();
+    for (int i = 0; i <= text.length(); i++) {
+      final char c = i < text.length() ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(c)) {
+        word.append(Character.toLowerCase(c));
+      } else if (word.length() > 0) {
+        words.add(word.toString());
+        word.setLength(0);
+      }
+    }
+    return words;
+  }
+
+  /**
+   * The sorted lines a word is in.
+   */
+  private static final class Postings {
+
+    private int[] lines = new int[2];
+    private int size = 0;
+
+    private void add(final int line) {
+      // a word twice in the same line is only counted once
+      if (this.size > 0 && this.lines[this.size - 1] == line) {
+        return;
+      }
+      if (this.size == this.lines.length) {
+        this.lines = Arrays.copyOf(this.lines, this.size * 2);
+      }
+      this.lines[this.size++] = line;
+    }
+
+    private int @NotNull [] toArray() {
+      return Arrays.copyOf(this.lines, this.size);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * <p>The lines of a {@link Pagination}, stored in fixed size chunks.</p>
+ * <p>Getting a line is two array lookups whatever its index, so any page is sliced in constant
+ * time. Appending never copies lines that are already stored, only the small array of chunks
+ * grows, so even a list of millions of lines is cheap to keep adding to. Lines can also be set,
+ * inserted and removed like in an array list, which moves every line after them.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class LineStore extends AbstractList<Component> implements RandomAccess {
+
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private Component[][] chunks = new Component[4][];
+  private int size = 0;
+
+  @Override
+  public Component get(final int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+    return this.chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+  }
+
+  @Override
+  public boolean add(final @NotNull Component line) {
+    final int chunk = this.size >>> CHUNK_BITS;
+    if (chunk == this.chunks.length) {
+      this.chunks = Arrays.copyOf(this.chunks, this.chunks.length * 2);
+    }
+    if (this.chunks[chunk] == null) {
+      this.chunks[chunk] = new Component[CHUNK_SIZE];
+    }
+    this.chunks[chunk][this.size & CHUNK_MASK] = line;
+    this.size++;
+    this.modCount++;
+    return true;
+  }
+
+  @Override
+  public Component set(final int index, final @NotNull Component line) {
+    final Component previous = this.get(index);
+    this.put(index, line);
+    return previous;
+  }
+
+  @Override
+  public void add(final int index, final @NotNull Component line) {
+    if (index < 0 || index > this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+    this.add(line);
+    for (int i = this.size - 1; i > index; i--) {
+      this.put(i, this.get(i - 1));
+    }
+    this.put(index, line);
+  }
+
+  @Override
+  public Component remove(final int index) {
+    final Component removed = this.get(index);
+    this.removeRange(index, index + 1);
+    return removed;
+  }
+
+  @Override
+  public void clear() {
+    this.chunks = new Component[4][];
+    this.size = 0;
+    this.modCount++;
+  }
+
+  @Override
+  protected void removeRange(final int from, final int to) {
+    final int removed = to - from;
+    for (int i = from; i + removed < this.size; i++) {
+      this.put(i, this.get(i + removed));
+    }
+    // let go of the lines past the new end
+    for (int i = this.size - removed; i < this.size; i++) {
+      this.put(i, null);
+    }
+    this.size -= removed;
+    this.modCount++;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  private void put(final int index, final Component line) {
+    this.chunks[index >>> CHUNK_BITS][index & CHUNK_MASK] = line;
+  }
+}
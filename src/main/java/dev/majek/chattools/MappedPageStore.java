@@ -0,0 +1,306 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.ComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A {@link PaginationSource} that keeps its lines serialized in a memory mapped file instead of
+ * on the heap.</p>
+ * <p>Lines are appended to the file as strings, by default in MiniMessage format, and only the
+ * lines of the page being rendered are read back and deserialized. The only thing kept on the
+ * heap is the offset of each line. The file outlives the store, opening it again picks up every
+ * line that was added to it before.</p>
+ * <pre>
+ * MappedPageStore history = MappedPageStore.open(Path.of("history.pages"));
+ * history.add(line);
+ * Pagination pagination = new Pagination(header, "/history", history);
+ * </pre>
+ *
+ * @author Majekdor
+ */
+public final class MappedPageStore implements PaginationSource, Closeable {
+
+  private static final int MAGIC = 0x43545053;
+  private static final int VERSION = 1;
+  // magic, version and the offset after the last line
+  private static final int HEADER_SIZE = 16;
+  private static final int SEGMENT_BITS = 24;
+
+  private final FileChannel channel;
+  private final ComponentSerializer<Component, ? extends Component, String> serializer;
+  private final int segmentBits;
+  private final int segmentSize;
+  private MappedByteBuffer[] segments = new MappedByteBuffer[4];
+  private long[] offsets = new long[64];
+  private int size = 0;
+  private long end;
+  private boolean closed = false;
+
+  MappedPageStore(final @NotNull Path file,
+                  final @NotNull ComponentSerializer<Component, ? extends Component, String> serializer,
+                  final int segmentBits) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    this.serializer = serializer;
+    this.segmentBits = segmentBits;
+    this.segmentSize = 1 << segmentBits;
+    try {
+      if (this.channel.size() == 0) {
+        this.writeInt(0, MAGIC);
+        this.writeInt(4, VERSION);
+        this.end = HEADER_SIZE;
+        this.writeLong(8, this.end);
+      } else {
+        // the header is read without mapping, which would grow a file that isn't a page store
+        final long fileSize = this.channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+          if (this.channel.read(header, header.position()) < 0) {
+            break;
+          }
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+          throw new IOException("Not a page store: " + file);
+        }
+        this.end = header.getLong();
+        if (this.end < HEADER_SIZE || this.end > fileSize) {
+          throw new IOException("Corrupt page store, it ends at " + this.end + " of " + fileSize + ": " + file);
+        }
+        // only the lengths are read to rebuild the offsets, no line is deserialized
+        long offset = HEADER_SIZE;
+        while (offset < this.end) {
+          final int length = offset + 4 > this.end ? -1 : this.readInt(offset);
+          if (length < 0 || offset + 4 + length > this.end) {
+            throw new IOException("Corrupt page store, line " + this.size + " at " + offset + " runs past the end: "
+                + file);
+          }
+          this.index(offset);
+          offset += 4 + length;
+        }
+      }
+    } catch (final IOException | RuntimeException ex) {
+      this.channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Open a page store, creating the file if it doesn't exist. Lines are stored in MiniMessage format.
+   *
+   * @param file the file
+   * @return the page store
+   * @throws IOException if the file can't be opened or isn't a page store
+   */
+  public static @NotNull MappedPageStore open(final @NotNull Path file) throws IOException {
+    return open(file, MiniMessage.builder().build());
+  }
+
+  /**
+   * Open a page store, creating the file if it doesn't exist. Lines are stored in whatever
+   * format the serializer writes, the same serializer has to be used every time the file is opened.
+   *
+   * @param file the file
+   * @param serializer the serializer for the lines
+   * @return the page store
+   * @throws IOException if the file can't be opened or isn't a page store
+   */
+  public static @NotNull MappedPageStore open(
+      final @NotNull Path file,
+      final @NotNull ComponentSerializer<Component, ? extends Component, String> serializer
+  ) throws IOException {
+    return new MappedPageStore(file, serializer, SEGMENT_BITS);
+  }
+
+  /**
+   * Add a line to the end of the store.
+   *
+   * @param line the line
+   * @throws UncheckedIOException if the file can't grow
+   */
+  public synchronized void add(final @NotNull Component line) {
+    this.checkOpen();
+    final byte[] bytes = this.serializer.serialize(line).getBytes(StandardCharsets.UTF_8);
+    final long offset = this.end;
+    this.writeInt(offset, bytes.length);
+    this.write(offset + 4, bytes);
+    this.index(offset);
+    this.end = offset + 4 + bytes.length;
+    // written last, so a line that was only partly written is never read on the next open
+    this.writeLong(8, this.end);
+  }
+
+  /**
+   * Add lines to the end of the store.
+   *
+   * @param lines the lines
+   * @throws UncheckedIOException if the file can't grow
+   */
+  public synchronized void addAll(final @NotNull List<? extends Component> lines) {
+    lines.forEach(this::add);
+  }
+
+  @Override
+  public synchronized int size() {
+    return this.size;
+  }
+
+  @Override
+  public synchronized @NotNull List<Component> lines(final int from, final int to) {
+    this.checkOpen();
+    final int last = Math.min(to, this.size);
+    if (from >= last) {
+      return Collections.emptyList();
+    }
+    final List<Component> lines = new ArrayList<>(last - from);
+    for (int i = from; i < last; i++) {
+      final byte[] bytes = new byte[this.readInt(this.offsets[i])];
+      this.read(this.offsets[i] + 4, bytes);
+      lines.add(this.serializer.deserialize(new String(bytes, StandardCharsets.UTF_8)));
+    }
+    return lines;
+  }
+
+  /**
+   * Write everything added so far through to the file.
+   */
+  public synchronized void flush() {
+    this.checkOpen();
+    for (final MappedByteBuffer segment : this.segments) {
+      if (segment != null) {
+        segment.force();
+      }
+    }
+  }
+
+  /**
+   * Flush and close the store. It can't be used anymore after this, open the file again instead.
+   *
+   * <p>Java has no way to unmap a file, so the mapped regions stay live until they're garbage collected.
+   * On Windows that means the file can't be deleted, or opened again to be truncated, until then.</p>
+   *
+   * @throws IOException if the file can't be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.flush();
+    this.closed = true;
+    this.segments = null;
+    this.channel.close();
+  }
+
+  private void checkOpen() {
+    if (this.closed) {
+      throw new IllegalStateException("The page store is closed");
+    }
+  }
+
+  private void index(final long offset) {
+    if (this.size == this.offsets.length) {
+      this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+    }
+    this.offsets[this.size++] = offset;
+  }
+
+  /**
+   * Get the segment of the file an offset is in, mapping it if it isn't yet.
+   *
+   * @param offset the offset
+   * @return the segment
+   */
+  private @NotNull MappedByteBuffer segment(final long offset) {
+    final int index = (int) (offset >>> this.segmentBits);
+    if (index >= this.segments.length) {
+      this.segments = Arrays.copyOf(this.segments, Math.max(index + 1, this.segments.length * 2));
+    }
+    if (this.segments[index] == null) {
+      try {
+        this.segments[index] = this.channel.map(FileChannel.MapMode.READ_WRITE,
+            (long) index << this.segmentBits, this.segmentSize);
+      } catch (final IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+    return this.segments[index];
+  }
+
+  // lines are stored back to back, so any of them may cross from one segment into the next
+
+  private void write(long offset, final byte[] bytes) {
+    int done = 0;
+    while (done < bytes.length) {
+      final int position = (int) (offset & (this.segmentSize - 1));
+      final int length = Math.min(bytes.length - done, this.segmentSize - position);
+      this.segment(offset).duplicate().position(position).put(bytes, done, length);
+      done += length;
+      offset += length;
+    }
+  }
+
+  private void read(long offset, final byte[] bytes) {
+    int done = 0;
+    while (done < bytes.length) {
+      final int position = (int) (offset & (this.segmentSize - 1));
+      final int length = Math.min(bytes.length - done, this.segmentSize - position);
+      this.segment(offset).duplicate().position(position).get(bytes, done, length);
+      done += length;
+      offset += length;
+    }
+  }
+
+  private void writeInt(final long offset, final int value) {
+    this.write(offset, ByteBuffer.allocate(4).putInt(value).array());
+  }
+
+  private int readInt(final long offset) {
+    final byte[] bytes = new byte[4];
+    this.read(offset, bytes);
+    return ByteBuffer.wrap(bytes).getInt();
+  }
+
+  private void writeLong(final long offset, final long value) {
+    this.write(offset, ByteBuffer.allocate(8).putLong(value).array());
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds the registered {@link MetricsListener}, read once per measured call.
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class Metrics {
+
+  static volatile @Nullable MetricsListener listener;
+
+  private Metrics() {
+  }
+
+  /**
+   * Count the components in a tree, including the contents of text hovers.
+   *
+   * @param component the root of the tree
+   * @return the number of components
+   */
+  static int nodeCount(final @NotNull Component component) {
+    int count = 1;
+    for (Component child : component.children()) {
+      count += nodeCount(child);
+    }
+    final HoverEvent<?> hoverEvent = component.style().hoverEvent();
+    if (hoverEvent != null && hoverEvent.action() == HoverEvent.Action.SHOW_TEXT) {
+      count += nodeCount((Component) hoverEvent.value());
+    }
+    return count;
+  }
+}
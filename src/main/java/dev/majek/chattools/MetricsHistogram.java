@@ -0,0 +1,222 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A {@link MetricsListener} that keeps a latency histogram and size totals for each operation
+ * in memory. Recording never allocates and is safe from any thread.</p>
+ * <p>Latencies are bucketed by powers of two, so percentiles are accurate to within a factor of two.
+ * That's plenty to tell whether chat formatting costs microseconds or milliseconds of a tick.</p>
+ *
+ * @author Majekdor
+ */
+public final class MetricsHistogram implements MetricsListener {
+
+  private static final int BUCKETS = Long.SIZE;
+
+  private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+
+  /**
+   * Create a new, empty histogram.
+   */
+  public MetricsHistogram() {
+    for (Operation operation : Operation.values()) {
+      this.histograms.put(operation, new Histogram());
+    }
+  }
+
+  @Override
+  public void record(final @NotNull Operation operation, final int inputSize, final int outputSize,
+                     final long nanos) {
+    final Histogram histogram = this.histograms.get(operation);
+    histogram.buckets[bucket(nanos)].increment();
+    histogram.totalNanos.add(nanos);
+    histogram.maxNanos.accumulate(nanos);
+    histogram.totalInput.add(inputSize);
+    histogram.totalOutput.add(outputSize);
+  }
+
+  /**
+   * Get the number of times an operation was recorded.
+   *
+   * @param operation the operation
+   * @return the count
+   */
+  public long count(final @NotNull Operation operation) {
+    return this.histograms.get(operation).count();
+  }
+
+  /**
+   * Get the average time an operation took, in nanoseconds.
+   *
+   * @param operation the operation
+   * @return the average, or 0 if it was never recorded
+   */
+  public double averageNanos(final @NotNull Operation operation) {
+    final Histogram histogram = this.histograms.get(operation);
+    final long count = histogram.count();
+    return count == 0 ? 0.0 : (double) histogram.totalNanos.sum() / count;
+  }
+
+  /**
+   * Get the longest time an operation took, in nanoseconds.
+   *
+   * @param operation the operation
+   * @return the maximum, or 0 if it was never recorded
+   */
+  public long maxNanos(final @NotNull Operation operation) {
+    return this.histograms.get(operation).maxNanos.get();
+  }
+
+  /**
+   * Get an upper bound of the time the given percentage of calls of an operation took, in nanoseconds.
+   *
+   * @param operation the operation
+   * @param percentile the percentage of calls, like 50 for the median or 99
+   * @return the percentile, or 0 if it was never recorded
+   */
+  public long percentileNanos(final @NotNull Operation operation,
+                              final @Range(from = 0, to = 100) double percentile) {
+    final Histogram histogram = this.histograms.get(operation);
+    final long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = histogram.buckets[i].sum();
+      count += counts[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        final long upper = i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+        return Math.min(upper, histogram.maxNanos.get());
+      }
+    }
+    return histogram.maxNanos.get();
+  }
+
+  /**
+   * Get the average input size of an operation, see {@link Operation} for what it measures.
+   *
+   * @param operation the operation
+   * @return the average, or 0 if it was never recorded
+   */
+  public double averageInputSize(final @NotNull Operation operation) {
+    final Histogram histogram = this.histograms.get(operation);
+    final long count = histogram.count();
+    return count == 0 ? 0.0 : (double) histogram.totalInput.sum() / count;
+  }
+
+  /**
+   * Get the average output size of an operation, see {@link Operation} for what it measures.
+   *
+   * @param operation the operation
+   * @return the average, or 0 if it was never recorded
+   */
+  public double averageOutputSize(final @NotNull Operation operation) {
+    final Histogram histogram = this.histograms.get(operation);
+    final long count = histogram.count();
+    return count == 0 ? 0.0 : (double) histogram.totalOutput.sum() / count;
+  }
+
+  /**
+   * Clear everything recorded so far.
+   */
+  public void reset() {
+    this.histograms.values().forEach(Histogram::reset);
+  }
+
+  /**
+   * Get a summary of every operation that was recorded, one line each, ready to be sent from a command.
+   *
+   * @return the summary lines
+   */
+  public @NotNull List<String> dump() {
+    final List<String> lines = new ArrayList<>();
+    for (Operation operation : Operation.values()) {
+      final long count = this.count(operation);
+      if (count == 0) {
+        continue;
+      }
+      lines.add(String.format(Locale.ROOT, "%s: count=%d avg=%.1fus p50=%.1fus p99=%.1fus max=%.1fus "
+              + "in=%.1f out=%.1f", operation.name().toLowerCase(Locale.ROOT), count,
+          this.averageNanos(operation) / 1000, this.percentileNanos(operation, 50) / 1000.0,
+          this.percentileNanos(operation, 99) / 1000.0, this.maxNanos(operation) / 1000.0,
+          this.averageInputSize(operation), this.averageOutputSize(operation)));
+    }
+    return lines;
+  }
+
+  private static int bucket(final long nanos) {
+    return nanos <= 1 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+  }
+
+  private static final class Histogram {
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalInput = new LongAdder();
+    private final LongAdder totalOutput = new LongAdder();
+
+    private Histogram() {
+      for (int i = 0; i < BUCKETS; i++) {
+        this.buckets[i] = new LongAdder();
+      }
+    }
+
+    private long count() {
+      long count = 0;
+      for (LongAdder bucket : this.buckets) {
+        count += bucket.sum();
+      }
+      return count;
+    }
+
+    private void reset() {
+      for (LongAdder bucket : this.buckets) {
+        bucket.reset();
+      }
+      this.totalNanos.reset();
+      this.maxNanos.reset();
+      this.totalInput.reset();
+      this.totalOutput.reset();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <p>Listens to the hot paths of chat-tools to measure what they cost.</p>
+ * <p>Only one listener is registered at a time. While none is, nothing is timed or counted,
+ * the only cost is a single check. {@link MetricsHistogram} is a ready made listener that
+ * keeps everything in memory.</p>
+ *
+ * @author Majekdor
+ */
+@FunctionalInterface
+public interface MetricsListener {
+
+  /**
+   * Register the listener, replacing any registered before it.
+   *
+   * @param listener the listener
+   */
+  static void register(final @NotNull MetricsListener listener) {
+    Metrics.listener = listener;
+  }
+
+  /**
+   * Unregister the registered listener, if there is one.
+   */
+  static void unregister() {
+    Metrics.listener = null;
+  }
+
+  /**
+   * Get the registered listener.
+   *
+   * @return the listener, or null if there is none
+   */
+  static @Nullable MetricsListener registered() {
+    return Metrics.listener;
+  }
+
+  /**
+   * Record one call of an operation. What the sizes measure depends on the {@link Operation}.
+   *
+   * @param operation the operation
+   * @param inputSize the size of the input
+   * @param outputSize the size of the output
+   * @param nanos how long the call took, in nanoseconds
+   */
+  void record(@NotNull Operation operation, int inputSize, int outputSize, long nanos);
+
+  /**
+   * The operations that are measured.
+   */
+  enum Operation {
+    /**
+     * {@link MiniMessageWrapper#mmString(String)} and its streaming forms. The input size is its
+     * length, or -1 if read from a reader, the output size is the length of the result.
+     */
+    SANITIZE,
+    /**
+     * {@link MiniMessageWrapper#mmParse(String)}. The input size is the length of the string,
+     * the output size is the number of components in the result.
+     */
+    PARSE,
+    /**
+     * {@link TextComponentCutter#cutComponent(net.kyori.adventure.text.Component)}. The input size is
+     * the number of components cut, the output size is the number of lines they were cut into.
+     */
+    CUT,
+    /**
+     * {@link Pagination#addLine(net.kyori.adventure.text.Component)} and {@link Pagination#addLines(java.util.List)}.
+     * The input size is the number of lines added, the output size is the number of lines
+     * they took up once long ones were cut.
+     */
+    ADD_LINES,
+    /**
+     * {@link Pagination#render(int)}. The input size is the total number of lines, the output
+     * size is the number of lines rendered.
+     */
+    RENDER,
+    /**
+     * {@link Pagination#sendPage(int, net.kyori.adventure.audience.Audience)}. The input size is the
+     * total number of lines, the output size is the number of lines sent.
+     */
+    SEND_PAGE
+  }
+}
@@ -31,6 +31,15 @@ import net.kyori.adventure.text.minimessage.placeholder.PlaceholderResolver;
 import net.kyori.adventure.text.minimessage.transformation.TransformationType;
 import net.kyori.adventure.util.Buildable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A wrapper for {@link MiniMessage} to add a few more methods for more customization.
@@ -100,6 +109,128 @@ public interface MiniMessageWrapper extends Buildable<MiniMessageWrapper, MiniMe
    */
   @NotNull String mmString(@NotNull String mmString);
 
+  /**
+   * Get the modified sequence, written straight to the output instead of building a new string.
+   * The input length, tag and nesting budgets apply as they do to {@link #mmString(String)}, but tags
+   * are checked as they're written, so the output may already hold part of the result when one is exceeded.
+   *
+   * @param mmString the sequence to modify
+   * @param out where to write the modified sequence
+   * @throws IOException if the output can't be written to
+   */
+  void mmString(@NotNull CharSequence mmString, @NotNull Appendable out) throws IOException;
+
+  /**
+   * Get the modified text read from the reader, written to the output as it's read. Only a buffer's
+   * worth of the input is held at a time, tags split across reads are still handled. The complexity
+   * budgets don't apply, this is meant for large trusted text like books.
+   *
+   * @param mmString the reader to modify the text of
+   * @param out where to write the modified text
+   * @throws IOException if the reader can't be read or the output can't be written to
+   */
+  void mmString(@NotNull Reader mmString, @NotNull Appendable out) throws IOException;
+
+  /**
+   * Apply this wrapper's restrictions to a component that's already been built, like one from another
+   * plugin or from json. Colors, decorations and, unless advanced transformations are parsed, click
+   * and hover events that wouldn't have been parsed are removed. Gradients and rainbows are hex colors
+   * once they're components, so they're kept or removed like hex colors.
+   *
+   * @param component the component to sanitize
+   * @return the sanitized component, parts that didn't change are the same instances
+   */
+  @NotNull Component sanitize(@NotNull Component component);
+
+  /**
+   * Compile a template that's rendered many times with different values, like
+   * {@code <gray>[<rank>] <name>: <message>}. The template is modified and parsed once,
+   * rendering only fills in the placeholders.
+   *
+   * @param template the template to compile
+   * @param placeholders the keys of the placeholders in the template
+   * @return the compiled template
+   */
+  @NotNull CompiledTemplate compile(@NotNull String template, @NotNull String... placeholders);
+
+  /**
+   * Parse a string into a {@link Component} off the calling thread. Placeholders are
+   * resolved on the executor too, so slow lookups won't hold up the caller. Uses a
+   * virtual thread per parse on Java 21 or newer, otherwise the common {@link ForkJoinPool}.
+   *
+   * @param mmString the string to parse
+   * @return a future completed with the parsed component
+   */
+  default @NotNull CompletableFuture<Component> mmParseAsync(@NotNull String mmString) {
+    return this.mmParseAsync(mmString, AsyncExecutor.DEFAULT);
+  }
+
+  /**
+   * Parse a string into a {@link Component} on the executor. Placeholders are resolved
+   * on the executor too, so slow lookups won't hold up the caller.
+   *
+   * @param mmString the string to parse
+   * @param executor the executor to parse on
+   * @return a future completed with the parsed component
+   */
+  default @NotNull CompletableFuture<Component> mmParseAsync(@NotNull String mmString, @NotNull Executor executor) {
+    return CompletableFuture.supplyAsync(() -> this.mmParse(mmString), executor);
+  }
+
+  /**
+   * Parse a batch of strings into {@link Component}s. Large batches are split across
+   * the common {@link ForkJoinPool}, small ones are parsed on the calling thread.
+   *
+   * @param mmStrings the strings to parse
+   * @return the components, in the same order as the strings
+   */
+  default @NotNull List<Component> mmParseAll(@NotNull List<String> mmStrings) {
+    return this.mmParseAll(mmStrings, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Parse a batch of strings into {@link Component}s. Large batches are split across
+   * the executor, small ones are parsed on the calling thread.
+   *
+   * @param mmStrings the strings to parse
+   * @param executor the executor to split large batches across
+   * @return the components, in the same order as the strings
+   */
+  default @NotNull List<Component> mmParseAll(@NotNull List<String> mmStrings, @NotNull Executor executor) {
+    return ParallelBatch.map(mmStrings, this::mmParse, executor);
+  }
+
+  /**
+   * Get a batch of modified strings. Large batches are split across the common
+   * {@link ForkJoinPool}, small ones are modified on the calling thread.
+   *
+   * @param mmStrings the strings to modify
+   * @return the modified strings, in the same order
+   */
+  default @NotNull List<String> mmStringAll(@NotNull List<String> mmStrings) {
+    return this.mmStringAll(mmStrings, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Get a batch of modified strings. Large batches are split across the executor,
+   * small ones are modified on the calling thread.
+   *
+   * @param mmStrings the strings to modify
+   * @param executor the executor to split large batches across
+   * @return the modified strings, in the same order
+   */
+  default @NotNull List<String> mmStringAll(@NotNull List<String> mmStrings, @NotNull Executor executor) {
+    return ParallelBatch.map(mmStrings, this::mmString, executor);
+  }
+
+  /**
+   * Get the statistics of the parse cache. If the cache isn't enabled these will all be 0.
+   *
+   * @return cache statistics
+   * @see Builder#cache(int)
+   */
+  @NotNull CacheStats cacheStats();
+
   /**
    * <p>Creates a new {@link Builder}.</p>
    * <p>Default builder options:</p>
@@ -209,6 +340,83 @@ public interface MiniMessageWrapper extends Buildable<MiniMessageWrapper, MiniMe
      */
     @NotNull Builder preventLuminanceBelow(final int threshold);
 
+    /**
+     * <p>Cache the results of {@link #mmParse(String)} for repeated input, keeping at most
+     * this many entries. The least recently used entry is evicted first.</p>
+     * <p>Note: A wrapper with a {@link PlaceholderResolver} set never caches since
+     * placeholders may resolve to something different on every call.</p>
+     *
+     * @param maximumEntries the maximum number of cached results, 0 to disable
+     * @return this builder
+     */
+    @NotNull Builder cache(final int maximumEntries);
+
+    /**
+     * Cache the results of {@link #mmParse(String)} for repeated input, keeping at most
+     * this many characters of input across all entries. This can be combined with
+     * {@link #cache(int)}, whichever bound is hit first evicts.
+     *
+     * @param maximumCharacters the maximum total length of cached input, 0 to disable
+     * @return this builder
+     */
+    @NotNull Builder cacheWeight(final long maximumCharacters);
+
+    /**
+     * The longest input that will be modified or parsed. Longer input throws a
+     * {@link BudgetExceededException} before any work is done on it.
+     *
+     * @param characters the maximum length, 0 for no limit
+     * @return this builder
+     */
+    @NotNull Builder maxInputLength(final int characters);
+
+    /**
+     * The most tags the modified string may have, legacy codes that became tags included.
+     * More throws a {@link BudgetExceededException} before it's parsed.
+     *
+     * @param tags the maximum number of tags, 0 for no limit
+     * @return this builder
+     */
+    @NotNull Builder maxTags(final int tags);
+
+    /**
+     * How deep tags in the modified string may be nested. Deeper throws a
+     * {@link BudgetExceededException} before it's parsed.
+     *
+     * @param depth the maximum depth, 0 for no limit
+     * @return this builder
+     */
+    @NotNull Builder maxNestingDepth(final int depth);
+
+    /**
+     * The most components a parsed result may be made of. More throws a {@link BudgetExceededException}.
+     *
+     * @param nodes the maximum number of components, 0 for no limit
+     * @return this builder
+     */
+    @NotNull Builder maxOutputNodes(final int nodes);
+
+    /**
+     * The named colors that can be used as tags, like {@code <aliceblue>} or {@code <css:aliceblue>}.
+     * Defaults to {@link CSSColorTable#css()}, a server's own palette can be added to it with
+     * {@link CSSColorTable#toBuilder()}.
+     *
+     * @param colors the colors
+     * @return this builder
+     */
+    @NotNull Builder cssColors(final @NotNull CSSColorTable colors);
+
+    /**
+     * <p>Remap every color of parsed components to the nearest color of a palette, for channels or
+     * clients that can only show some colors. This covers hex colors, css colors, gradients and rainbows.</p>
+     * <p>Note: Only components are remapped, {@link #mmString(String)} still has the original colors.</p>
+     *
+     * @param palette the palette, or null to keep every color
+     * @return this builder
+     * @see Palette#named()
+     */
+    @NotNull Builder downsampleTo(final @Nullable Palette palette);
+
     /**
      * Build the {@link MiniMessageWrapper} ready to parse.
      *
@@ -217,4 +425,49 @@ public interface MiniMessageWrapper extends Buildable<MiniMessageWrapper, MiniMe
     @Override
     @NotNull MiniMessageWrapper build();
   }
+
+  /**
+   * Thrown when input is more complex than a wrapper's budgets allow.
+   *
+   * @see Builder#maxInputLength(int)
+   * @see Builder#maxTags(int)
+   * @see Builder#maxNestingDepth(int)
+   * @see Builder#maxOutputNodes(int)
+   */
+  class BudgetExceededException extends IllegalArgumentException {
+
+    private final Budget budget;
+    private final int limit;
+
+    BudgetExceededException(final @NotNull Budget budget, final int limit) {
+      super(budget.name().toLowerCase(Locale.ROOT) + " exceeds the limit of " + limit);
+      this.budget = budget;
+      this.limit = limit;
+    }
+
+    /**
+     * Get the budget that was exceeded.
+     *
+     * @return the budget
+     */
+    public @NotNull Budget budget() {
+      return this.budget;
+    }
+
+    /**
+     * Get the limit of the budget that was exceeded.
+     *
+     * @return the limit
+     */
+    public int limit() {
+      return this.limit;
+    }
+
+    /**
+     * The budgets a wrapper can have.
+     */
+    public enum Budget {
+      INPUT_LENGTH, TAGS, NESTING_DEPTH, OUTPUT_NODES
+    }
+  }
 }
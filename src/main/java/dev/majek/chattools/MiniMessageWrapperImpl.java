@@ -25,9 +25,9 @@ package dev.majek.chattools;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.placeholder.Placeholder;
 import net.kyori.adventure.text.minimessage.placeholder.PlaceholderResolver;
 import net.kyori.adventure.text.minimessage.transformation.TransformationRegistry;
 import net.kyori.adventure.text.minimessage.transformation.TransformationType;
@@ -35,9 +35,9 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static net.kyori.adventure.text.format.NamedTextColor.*;
 
@@ -49,183 +49,186 @@ import static net.kyori.adventure.text.format.NamedTextColor.*;
 @ApiStatus.Internal
 final class MiniMessageWrapperImpl implements MiniMessageWrapper {
 
-  @ApiStatus.Internal
-  static final MiniMessageWrapper STANDARD = new MiniMessageWrapperImpl(true, true,
-      true, false, false, true,
-      PlaceholderResolver.empty(), new HashSet<>(), new HashSet<>(), 0);
-
-  @ApiStatus.Internal
-  static final MiniMessageWrapper LEGACY = new MiniMessageWrapperImpl(true, true,
-      true, true, false, true,
-      PlaceholderResolver.empty(), new HashSet<>(), new HashSet<>(), 0);
+  private static final TransformationRegistry ALL_TRANSFORMATIONS = transformations(true, CSSColorTable.css());
 
-  private final TransformationType<?> CSS_COLOR = TransformationType.transformationType(
-      CSSColorTransformation::canParse,
-      CSSColorTransformation::create
-  );
+  private static final TransformationRegistry COLOR_TRANSFORMATIONS = transformations(false, CSSColorTable.css());
 
-  @SuppressWarnings("all")
-  private final TransformationRegistry allTransformations = TransformationRegistry.builder().clear().add(
-      TransformationType.CLICK_EVENT, TransformationType.COLOR, TransformationType.DECORATION,
-      TransformationType.FONT, TransformationType.GRADIENT, TransformationType.HOVER_EVENT,
-      TransformationType.INSERTION, TransformationType.KEYBIND, TransformationType.RAINBOW,
-      TransformationType.TRANSLATABLE, CSS_COLOR
-  ).build();
+  @ApiStatus.Internal
+  static final MiniMessageWrapper STANDARD = new BuilderImpl().build();
 
-  @SuppressWarnings("all")
-  private final TransformationRegistry colorTransformations = TransformationRegistry.builder().clear().add(
-      TransformationType.COLOR, TransformationType.DECORATION,
-      TransformationType.GRADIENT, TransformationType.RAINBOW, CSS_COLOR
-  ).build();
+  @ApiStatus.Internal
+  static final MiniMessageWrapper LEGACY = new BuilderImpl().legacyColors(true).build();
 
   private final boolean gradients, hexColors, standardColors, legacyColors, advancedTransformations, blockCloseHex;
   private final PlaceholderResolver placeholderResolver;
   private final Set<TextDecoration> removedTextDecorations;
   private final Set<NamedTextColor> removedColors;
   private final int luminanceThreshold;
-
-  MiniMessageWrapperImpl(final boolean gradients, final boolean hexColors, final boolean standardColors,
-                         final boolean legacyColors, final boolean advancedTransformations,
-                         final boolean blockCloseHex, final PlaceholderResolver placeholderResolver,
-                         final Set<TextDecoration> removedTextDecorations,
-                         final Set<NamedTextColor> removedColors, final int luminanceThreshold) {
-    this.gradients = gradients;
-    this.hexColors = hexColors;
-    this.standardColors = standardColors;
-    this.legacyColors = legacyColors;
-    this.advancedTransformations = advancedTransformations;
-    this.blockCloseHex = blockCloseHex;
-    this.placeholderResolver = placeholderResolver;
-    this.removedTextDecorations = removedTextDecorations;
-    this.removedColors = removedColors;
-    this.luminanceThreshold = luminanceThreshold;
+  private final int cacheSize;
+  private final long cacheWeight;
+  private final int maxInputLength, maxTags, maxNestingDepth, maxOutputNodes;
+  private final CSSColorTable cssColors;
+  private final @Nullable Palette palette;
+
+  // compiled once from the options above so parsing doesn't rebuild them
+  private final Map<TextDecoration, TextDecoration.State> decorationStateMap;
+  private final TransformationRegistry transformations;
+  private final MiniMessage miniMessage;
+  private final StringSanitizer sanitizer;
+  private final ComponentSanitizer componentSanitizer;
+  private final @Nullable ParseCache cache;
+  private final ComplexityBudget budget;
+
+  MiniMessageWrapperImpl(final @NotNull BuilderImpl builder) {
+    this.gradients = builder.gradients;
+    this.hexColors = builder.hexColors;
+    this.standardColors = builder.standardColors;
+    this.legacyColors = builder.legacyColors;
+    this.advancedTransformations = builder.advancedTransformations;
+    this.blockCloseHex = builder.blockCloseHex;
+    this.placeholderResolver = builder.placeholderResolver;
+    this.removedTextDecorations = Set.copyOf(builder.removedTextDecorations);
+    this.removedColors = Set.copyOf(builder.removedColors);
+    this.luminanceThreshold = builder.luminanceThreshold;
+    this.cacheSize = builder.cacheSize;
+    this.cacheWeight = builder.cacheWeight;
+    this.maxInputLength = builder.maxInputLength;
+    this.maxTags = builder.maxTags;
+    this.maxNestingDepth = builder.maxNestingDepth;
+    this.maxOutputNodes = builder.maxOutputNodes;
+    this.cssColors = builder.cssColors;
+    this.palette = builder.palette;
+
+    final Map<TextDecoration, TextDecoration.State> decorationStateMap = new EnumMap<>(TextDecoration.class);
+    for (TextDecoration decoration : this.removedTextDecorations) {
+      decorationStateMap.put(decoration, TextDecoration.State.FALSE);
+    }
+    this.decorationStateMap = Collections.unmodifiableMap(decorationStateMap);
+    if (this.cssColors == CSSColorTable.css()) {
+      this.transformations = this.advancedTransformations ? ALL_TRANSFORMATIONS : COLOR_TRANSFORMATIONS;
+    } else {
+      this.transformations = transformations(this.advancedTransformations, this.cssColors);
+    }
+    this.miniMessage = MiniMessage.builder().placeholderResolver(this.placeholderResolver)
+        .transformations(this.transformations).build();
+    final ColorPolicy colorPolicy = new ColorPolicy(this.blockCloseHex, this.removedColors, this.luminanceThreshold);
+    this.sanitizer = new StringSanitizer(this.gradients, this.hexColors, this.standardColors, this.legacyColors,
+        this.removedColors, colorPolicy);
+    this.componentSanitizer = new ComponentSanitizer(this.hexColors, this.standardColors,
+        this.advancedTransformations, this.removedColors, this.decorationStateMap, colorPolicy, this.palette);
+
+    // placeholders may resolve differently on every call, so those results can't be reused
+    final boolean cacheable = this.placeholderResolver == PlaceholderResolver.empty();
+    this.cache = cacheable && (this.cacheSize > 0 || this.cacheWeight > 0)
+        ? new ParseCache(this.cacheSize, this.cacheWeight) : null;
+    this.budget = new ComplexityBudget(this.maxInputLength, this.maxTags, this.maxNestingDepth, this.maxOutputNodes);
   }
 
   @Override
   public @NotNull Component mmParse(@NotNull String mmString) {
-    Map<TextDecoration, TextDecoration.State> decorationStateMap = new HashMap<>();
-    for (TextDecoration decoration : removedTextDecorations) {
-      decorationStateMap.put(decoration, TextDecoration.State.FALSE);
+    final MetricsListener metrics = Metrics.listener;
+    if (metrics == null) {
+      return this.parseCached(mmString);
+    }
+    final long start = System.nanoTime();
+    final Component parsed = this.parseCached(mmString);
+    metrics.record(MetricsListener.Operation.PARSE, mmString.length(), Metrics.nodeCount(parsed),
+        System.nanoTime() - start);
+    return parsed;
+  }
+
+  private @NotNull Component parseCached(@NotNull String mmString) {
+    if (this.cache != null) {
+      return this.cache.get(mmString, this::parse);
     }
-    return MiniMessage.builder().placeholderResolver(this.placeholderResolver).transformations(
-        this.advancedTransformations ? this.allTransformations : this.colorTransformations
-    ).build().parse(this.mmString(mmString)).decorations(decorationStateMap);
+    return this.parse(mmString);
+  }
+
+  private @NotNull Component parse(@NotNull String mmString) {
+    // input without tags only has what legacy codes turn into, which is quicker to build directly
+    final Component parsed = LegacyFastPath.applies(mmString)
+        ? LegacyFastPath.parse(this.sanitizer, this.budget, mmString)
+        : Gradients.shareStyles(this.miniMessage.parse(this.mmString(mmString)));
+    this.budget.checkOutput(parsed);
+    final Component downsampled = this.componentSanitizer.downsample(parsed);
+    return this.decorationStateMap.isEmpty() ? downsampled : downsampled.decorations(this.decorationStateMap);
   }
 
   @Override
   public @NotNull String mmString(@NotNull String mmString) {
+    final MetricsListener metrics = Metrics.listener;
+    if (metrics == null) {
+      return this.sanitize(mmString);
+    }
+    final long start = System.nanoTime();
+    final String sanitized = this.sanitize(mmString);
+    metrics.record(MetricsListener.Operation.SANITIZE, mmString.length(), sanitized.length(),
+        System.nanoTime() - start);
+    return sanitized;
+  }
 
-    for (NamedTextColor color : this.removedColors) {
-      mmString = mmString.replace("<" + color.toString().toLowerCase(Locale.ROOT) + ">", "");
-      mmString = mmString.replace("</" + color.toString().toLowerCase(Locale.ROOT) + ">", "");
-      mmString = mmString.replace("&" + legacyCodeFromNamed(color), "");
-    }
-
-    if (this.legacyColors) {
-      if (this.hexColors) {
-        // parse the nicer pattern: '&#rrggbb' to spigot's: '&x&r&r&g&g&b&b'
-        final Pattern sixCharHex = Pattern.compile("&#([0-9a-fA-F]{6})");
-        Matcher matcher = sixCharHex.matcher(mmString);
-        StringBuilder sb = new StringBuilder();
-        while (matcher.find()) {
-          final StringBuilder replacement = new StringBuilder(14).append("&x");
-          for (final char character : matcher.group(1).toCharArray()) {
-            replacement.append('&').append(character);
-          }
-          matcher.appendReplacement(sb, replacement.toString());
-        }
-        matcher.appendTail(sb);
-        mmString = sb.toString();
-
-        // convert three char nicer hex '&#rgb' to spigot's: '&x&r&r&g&g&b&b'
-        final Pattern threeCharHex = Pattern.compile("&#([0-9a-fA-F]{3})");
-        matcher = threeCharHex.matcher(mmString);
-        sb = new StringBuilder();
-        while (matcher.find()) {
-          final StringBuilder replacement = new StringBuilder(14).append("&x");
-          for (final char character : matcher.group(1).toCharArray()) {
-            replacement.append('&').append(character).append("&").append(character);
-          }
-          matcher.appendReplacement(sb, replacement.toString());
-        }
-        matcher.appendTail(sb);
-        mmString = sb.toString();
-
-        // parse spigot's hex pattern '&x&r&r&g&g&b&b' to mini message's '<#rrggbb>'
-        final Pattern spigotHexPattern = Pattern.compile("&x(&[0-9a-fA-F]){6}");
-        matcher = spigotHexPattern.matcher(mmString);
-        sb = new StringBuilder();
-        while (matcher.find()) {
-          final StringBuilder replacement = new StringBuilder(9).append("<#");
-          for (final char character : matcher.group().toCharArray()) {
-            if (character != '&' && character != 'x') {
-              replacement.append(character);
-            }
-          }
-          replacement.append(">");
-          matcher.appendReplacement(sb, replacement.toString());
-        }
-        matcher.appendTail(sb);
-        mmString = sb.toString();
-      } else {
-        mmString = mmString.replaceAll("&#([0-9a-fA-F]{6})", "");
-        mmString = mmString.replaceAll("&x(&[0-9a-fA-F]){6}", "");
-      }
-
-      final Pattern legacyCharPattern = Pattern.compile("(?<!\\\\)(&([a-f0-9l-or]))");
-      mmString = legacyCharPattern.matcher(mmString).replaceAll((result) -> CHAR_COLORS.get(result.group(2).charAt(0)));
-
-      final Pattern escapedLegacyCharPattern = Pattern.compile("(\\\\&([a-f0-9l-or]))");
-      mmString = escapedLegacyCharPattern.matcher(mmString).replaceAll((result) -> "&" + result.group(2));
-    } else {
-      mmString = mmString.replaceAll("(&[0-9a-fA-Fk-oK-OxXrR])+", "");
-    }
-
-    if (!this.gradients) {
-      mmString = mmString.replaceAll("(?<!\\\\)<gradient([:#0-9a-fA-F]{8})+>", "");
-      mmString = mmString.replaceAll("(?<!\\\\)</gradient>", "");
-    }
-
-    final Pattern hexColorPattern = Pattern.compile("(<(/|)(c|color|colour|)(:|)(#[0-9a-fA-F]{6}|)>)");
-
-    if (!this.hexColors) {
-      mmString = hexColorPattern.matcher(mmString).replaceAll("");
-    }
-
-    final Pattern hexColorNoClosing = Pattern.compile("(<(c|color|colour|)(:|)(#[0-9a-fA-F]{6})>)");
-    final Matcher matcher = hexColorNoClosing.matcher(mmString);
-    while(matcher.find()) {
-      try {
-        String hexMatch = matcher.group(4);
-        if (
-            (blockCloseHex &&
-                this.removedColors.contains(NamedTextColor.nearestTo(TextColor.color(Integer
-                    .parseInt(hexMatch.substring(1), 16))))) ||
-                getLuma(hexMatch) < this.luminanceThreshold
-        ) {
-          mmString = mmString.replaceAll(matcher.group(1), "");
-        }
-      } catch (IndexOutOfBoundsException ignored) {
-        // if there's no hex group we don't need to do anything
-      }
-    }
-
-    // can't use regex, it would mess with placeholders
-    if (!this.standardColors) {
-      List<String> mmColorTags = new ArrayList<>(Arrays.asList("<black>", "<dark_blue>", "<dark_green>",
-          "<dark_aqua>", "<dark_red>", "<dark_purple>", "<gold>", "<gray>", "<dark_gray>", "<blue>", "<green>",
-          "<aqua>", "<red>", "<light_purple>", "<yellow>", "<white>", "<underlined>", "<strikethrough>", "<st>",
-          "<obfuscated>", "<obf>", "<italic>", "<em>", "<i>", "<bold>", "<b>", "<reset>", "<r>", "<pre>",
-          "</black>", "</dark_blue>", "</dark_green>", "</dark_aqua>", "</dark_red>", "</dark_purple>", "</gold>",
-          "</gray>", "</dark_gray>", "</blue>", "</green>", "</aqua>", "</red>", "</light_purple>", "</yellow>",
-          "</white>", "</underlined>", "</strikethrough>", "</st>", "</obfuscated>", "</obf>", "</italic>",
-          "</em>", "</i>", "</bold>", "</b>", "</reset>", "</r>", "</pre>"));
-      for (String tag : mmColorTags) {
-        mmString = mmString.replace(tag, "");
-      }
-    }
-
-    return mmString;
+  private @NotNull String sanitize(@NotNull String mmString) {
+    this.budget.checkInput(mmString);
+    final String sanitized = this.sanitizer.sanitize(mmString);
+    this.budget.checkTags(sanitized);
+    return sanitized;
+  }
+
+  @Override
+  public void mmString(@NotNull CharSequence mmString, @NotNull Appendable out) throws IOException {
+    this.budget.checkInput(mmString);
+    final MetricsListener metrics = Metrics.listener;
+    if (metrics == null) {
+      this.sanitizer.sanitize(mmString, this.budget.checkingTags(out));
+      return;
+    }
+    final long start = System.nanoTime();
+    final CountingAppendable counted = new CountingAppendable(out);
+    this.sanitizer.sanitize(mmString, this.budget.checkingTags(counted));
+    metrics.record(MetricsListener.Operation.SANITIZE, mmString.length(), counted.count,
+        System.nanoTime() - start);
+  }
+
+  @Override
+  public void mmString(@NotNull Reader mmString, @NotNull Appendable out) throws IOException {
+    final MetricsListener metrics = Metrics.listener;
+    if (metrics == null) {
+      this.sanitizer.sanitize(mmString, out);
+      return;
+    }
+    final long start = System.nanoTime();
+    final CountingAppendable counted = new CountingAppendable(out);
+    this.sanitizer.sanitize(mmString, counted);
+    metrics.record(MetricsListener.Operation.SANITIZE, -1, counted.count, System.nanoTime() - start);
+  }
+
+  @Override
+  public @NotNull Component sanitize(@NotNull Component component) {
+    return this.componentSanitizer.sanitize(component);
+  }
+
+  @Override
+  public @NotNull CompiledTemplate compile(@NotNull String template, @NotNull String... placeholders) {
+    // each placeholder becomes a marker component that's swapped out when rendering
+    final Map<String, String> holes = new HashMap<>(placeholders.length);
+    final List<Placeholder<?>> markers = new ArrayList<>(placeholders.length);
+    for (String key : placeholders) {
+      final String marker = CompiledTemplate.HOLE_PREFIX + key;
+      holes.put(marker, key);
+      markers.add(Placeholder.component(key, Component.text(marker)));
+    }
+    final MiniMessage miniMessage = MiniMessage.builder().placeholderResolver(PlaceholderResolver.combining(
+        PlaceholderResolver.placeholders(markers), this.placeholderResolver
+    )).transformations(this.transformations).build();
+
+    final Component skeleton = this.componentSanitizer.downsample(miniMessage.parse(this.mmString(template)));
+    return new CompiledTemplate(this, this.decorationStateMap.isEmpty() ? skeleton
+        : skeleton.decorations(this.decorationStateMap), Map.copyOf(holes));
+  }
+
+  @Override
+  public @NotNull CacheStats cacheStats() {
+    return this.cache == null ? CacheStats.EMPTY : this.cache.stats();
   }
 
   @Override
@@ -233,6 +236,41 @@ final class MiniMessageWrapperImpl implements MiniMessageWrapper {
     return new BuilderImpl(this);
   }
 
+  /**
+   * Counts what's written to an output so streamed sanitization can be measured.
+   */
+  private static final class CountingAppendable implements Appendable {
+
+    private final Appendable out;
+    private int count = 0;
+
+    private CountingAppendable(final @NotNull Appendable out) {
+      this.out = out;
+    }
+
+    @Override
+    public @NotNull Appendable append(final CharSequence csq) throws IOException {
+      final CharSequence sequence = csq == null ? "null" : csq;
+      this.out.append(sequence);
+      this.count += sequence.length();
+      return this;
+    }
+
+    @Override
+    public @NotNull Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+      this.out.append(csq == null ? "null" : csq, start, end);
+      this.count += end - start;
+      return this;
+    }
+
+    @Override
+    public @NotNull Appendable append(final char c) throws IOException {
+      this.out.append(c);
+      this.count++;
+      return this;
+    }
+  }
+
   @ApiStatus.Internal
   static final class BuilderImpl implements Builder {
 
@@ -241,6 +279,11 @@ final class MiniMessageWrapperImpl implements MiniMessageWrapper {
     private final Set<TextDecoration> removedTextDecorations;
     private final Set<NamedTextColor> removedColors;
     private int luminanceThreshold;
+    private int cacheSize;
+    private long cacheWeight;
+    private int maxInputLength, maxTags, maxNestingDepth, maxOutputNodes;
+    private CSSColorTable cssColors;
+    private @Nullable Palette palette;
 
     @ApiStatus.Internal
     BuilderImpl() {
@@ -254,6 +297,14 @@ final class MiniMessageWrapperImpl implements MiniMessageWrapper {
       this.removedTextDecorations = new HashSet<>();
       this.removedColors = new HashSet<>();
       this.luminanceThreshold = 0;
+      this.cacheSize = 0;
+      this.cacheWeight = 0;
+      this.maxInputLength = 0;
+      this.maxTags = 0;
+      this.maxNestingDepth = 0;
+      this.maxOutputNodes = 0;
+      this.cssColors = CSSColorTable.css();
+      this.palette = null;
     }
 
     @ApiStatus.Internal
@@ -265,9 +316,17 @@ final class MiniMessageWrapperImpl implements MiniMessageWrapper {
       this.advancedTransformations = wrapper.advancedTransformations;
       this.blockCloseHex = wrapper.blockCloseHex;
       this.placeholderResolver = wrapper.placeholderResolver;
-      this.removedTextDecorations = wrapper.removedTextDecorations;
-      this.removedColors = wrapper.removedColors;
+      this.removedTextDecorations = new HashSet<>(wrapper.removedTextDecorations);
+      this.removedColors = new HashSet<>(wrapper.removedColors);
       this.luminanceThreshold = wrapper.luminanceThreshold;
+      this.cacheSize = wrapper.cacheSize;
+      this.cacheWeight = wrapper.cacheWeight;
+      this.maxInputLength = wrapper.maxInputLength;
+      this.maxTags = wrapper.maxTags;
+      this.maxNestingDepth = wrapper.maxNestingDepth;
+      this.maxOutputNodes = wrapper.maxOutputNodes;
+      this.cssColors = wrapper.cssColors;
+      this.palette = wrapper.palette;
     }
 
     @Override
@@ -325,24 +384,92 @@ final class MiniMessageWrapperImpl implements MiniMessageWrapper {
       return this;
     }
 
+    @Override
+    public @NotNull Builder cache(final int maximumEntries) {
+      this.cacheSize = maximumEntries;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder cacheWeight(final long maximumCharacters) {
+      this.cacheWeight = maximumCharacters;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder maxInputLength(final int characters) {
+      this.maxInputLength = characters;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder maxTags(final int tags) {
+      this.maxTags = tags;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder maxNestingDepth(final int depth) {
+      this.maxNestingDepth = depth;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder maxOutputNodes(final int nodes) {
+      this.maxOutputNodes = nodes;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder cssColors(final @NotNull CSSColorTable colors) {
+      this.cssColors = colors;
+      return this;
+    }
+
+    @Override
+    public @NotNull Builder downsampleTo(final @Nullable Palette palette) {
+      this.palette = palette;
+      return this;
+    }
+
     @Override
     public @NotNull MiniMessageWrapper build() {
-      return new MiniMessageWrapperImpl(this.gradients, this.hexColors, this.standardColors,
-          this.legacyColors, this.advancedTransformations, this.blockCloseHex, this.placeholderResolver,
-          this.removedTextDecorations, this.removedColors, this.luminanceThreshold);
+      return new MiniMessageWrapperImpl(this);
     }
   }
 
-  private double getLuma(@NotNull String color) {
-    color = color.replaceAll("[&x#]", "");
+  @SuppressWarnings("all")
+  private static @NotNull TransformationRegistry transformations(final boolean advanced,
+                                                                 final @NotNull CSSColorTable cssColors) {
+    final TransformationType<?> cssColor = CSSColorTransformation.type(cssColors);
+    if (advanced) {
+      return TransformationRegistry.builder().clear().add(
+          TransformationType.CLICK_EVENT, TransformationType.COLOR, TransformationType.DECORATION,
+          TransformationType.FONT, TransformationType.GRADIENT, TransformationType.HOVER_EVENT,
+          TransformationType.INSERTION, TransformationType.KEYBIND, TransformationType.RAINBOW,
+          TransformationType.TRANSLATABLE, cssColor
+      ).build();
+    }
+    return TransformationRegistry.builder().clear().add(
+        TransformationType.COLOR, TransformationType.DECORATION,
+        TransformationType.GRADIENT, TransformationType.RAINBOW, cssColor
+    ).build();
+  }
 
-    final int r = Integer.valueOf(color.substring(0, 2), 16);
-    final int g = Integer.valueOf(color.substring(2, 4), 16);
-    final int b = Integer.valueOf(color.substring(4, 6), 16);
+  /**
+   * Get the luminance of a color, measured 0 - 255.
+   *
+   * @param rgb the color
+   * @return the luminance
+   */
+  static double luma(final int rgb) {
+    final int r = (rgb >> 16) & 0xFF;
+    final int g = (rgb >> 8) & 0xFF;
+    final int b = rgb & 0xFF;
     return (0.2126 * r) + (0.7152 * g) + (0.0722 * b);
   }
 
-  private @Nullable Character legacyCodeFromNamed(@NotNull NamedTextColor color) {
+  static @Nullable Character legacyCodeFromNamed(@NotNull NamedTextColor color) {
     if (BLACK.equals(color)) {
       return '0';
     } else if (DARK_BLUE.equals(color)) {
@@ -379,7 +506,7 @@ final class MiniMessageWrapperImpl implements MiniMessageWrapper {
     return null;
   }
 
-  private static final @NotNull Map<Character, String> CHAR_COLORS = new HashMap<>() {{
+  static final @NotNull Map<Character, String> CHAR_COLORS = new HashMap<>() {{
     put('0', "<black>");
     put('1', "<dark_blue>");
     put('2', "<dark_green>");
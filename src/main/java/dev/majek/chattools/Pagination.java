@@ -31,17 +31,33 @@ import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * Easily manage multiple pages of components.
  */
 public class Pagination {
 
-  private final List<Component> lines;
+  private static final int MAX_CACHED_HEADERS = 64;
+
+  private final LineStore lines;
+  private final List<Component> linesView;
+  private final @Nullable PaginationSource source;
+  private @Nullable LineIndex index = null;
+  // lines were changed through lines(), so the index has to be built again before it's used
+  private boolean indexStale = false;
+  // once searchable, the first of the lines each line was cut into, so a match can be shown whole
+  private int @Nullable [] lineStarts = null;
+  private int addedLines = 0;
   private final Component header;
   private final String movePageCommand;
 
@@ -55,6 +71,28 @@ public class Pagination {
   private int linesPerPage = 8;
   private int maxChatWidth = 55;
 
+  // what doesn't change from one render to the next, cleared when an option it's built from changes,
+  // renders can run at the same time so the caches are only touched while holding their lock, and
+  // what a render built is only cached if nothing was cleared while it was building
+  private boolean footerVisible = false;
+  private Buttons buttons = null;
+  private long headersGeneration = 0;
+  private long pagesGeneration = 0;
+  private final Map<Integer, Component> headers = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Integer, Component> eldest) {
+      return this.size() > MAX_CACHED_HEADERS;
+    }
+  };
+  private int headersNumPages = -1;
+  private int cachedPages = 0;
+  private final Map<Integer, List<Component>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<Integer, List<Component>> eldest) {
+      return this.size() > Pagination.this.cachedPages;
+    }
+  };
+
   /**
    * Create a new pagination.
    *
@@ -63,7 +101,26 @@ public class Pagination {
    *                        include the space, the space and page number will be appended
    */
   public Pagination(final @NotNull Component header, final @NotNull String movePageCommand) {
-    this.lines = new LinkedList<>();
+    this(header, movePageCommand, null);
+  }
+
+  /**
+   * <p>Create a new pagination that gets its lines from a source instead of having them added.</p>
+   * <p>Only the lines of the page being rendered are pulled from the source, and only those are
+   * cut. A page holds {@link #linesPerPage()} lines of the source, so a line cut into several
+   * makes its page that much longer. Use {@link #cachePages(int)} to keep recently rendered
+   * pages around instead of pulling them again.</p>
+   *
+   * @param header the header for the top of the page
+   * @param movePageCommand the command for traversing pages of the pagination, you don't need to
+   *                        include the space, the space and page number will be appended
+   * @param source the source of the lines
+   */
+  public Pagination(final @NotNull Component header, final @NotNull String movePageCommand,
+                    final @Nullable PaginationSource source) {
+    this.lines = new LineStore();
+    this.linesView = new LinesView();
+    this.source = source;
     this.header = header;
     this.movePageCommand = movePageCommand.trim() + " ";
   }
@@ -74,12 +131,16 @@ public class Pagination {
    *
    * @param line the line to add.
    * @return this pagination
+   * @throws IllegalStateException if the lines of this pagination come from a {@link PaginationSource}
    */
   public @NotNull Pagination addLine(final @NotNull Component line) {
-    if (this.plainText(line).length() > this.maxChatWidth) {
-      this.lines.addAll(this.cut(line));
-    } else {
-      this.lines.add(line);
+    this.checkNoSource();
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
+    final int size = this.lines.size();
+    this.append(line);
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.ADD_LINES, 1, this.lines.size() - size, System.nanoTime() - start);
     }
     return this;
   }
@@ -90,15 +151,18 @@ public class Pagination {
    *
    * @param lines the lines to add.
    * @return this pagination
+   * @throws IllegalStateException if the lines of this pagination come from a {@link PaginationSource}
    */
   public @NotNull Pagination addLines(final @NotNull List<Component> lines) {
-    lines.forEach(line -> {
-      if (this.plainText(line).length() > this.maxChatWidth) {
-        this.lines.addAll(this.cut(line));
-      } else {
-        this.lines.add(line);
-      }
-    });
+    this.checkNoSource();
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
+    final int size = this.lines.size();
+    lines.forEach(this::append);
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.ADD_LINES, lines.size(), this.lines.size() - size,
+          System.nanoTime() - start);
+    }
     return this;
   }
 
@@ -108,25 +172,178 @@ public class Pagination {
    *
    * @param lines the lines to add.
    * @return this pagination
+   * @throws IllegalStateException if the lines of this pagination come from a {@link PaginationSource}
    */
   public @NotNull Pagination addLines(final @NotNull Component... lines) {
-    for (Component line : lines) {
-      if (this.plainText(line).length() > this.maxChatWidth) {
-        this.lines.addAll(this.cut(line));
-      } else {
-        this.lines.add(line);
-      }
+    return this.addLines(List.of(lines));
+  }
+
+  /**
+   * Cut a line if it's too long, then store it and index it if this pagination is searchable.
+   *
+   * @param line the line
+   */
+  private void append(final @NotNull Component line) {
+    this.reindexIfStale();
+    final String text = this.plainText(line);
+    final int first = this.lines.size();
+    if (text.length() > this.maxChatWidth) {
+      this.lines.addAll(this.cut(line));
+    } else {
+      this.lines.add(line);
+    }
+    // the whole line is indexed, a word may have been cut in two
+    if (this.index != null) {
+      this.startLine(first);
+      this.index.add(first, text);
+    }
+  }
+
+  private void startLine(final int first) {
+    if (this.addedLines == this.lineStarts.length) {
+      this.lineStarts = Arrays.copyOf(this.lineStarts, this.addedLines * 2);
+    }
+    this.lineStarts[this.addedLines++] = first;
+  }
+
+  /**
+   * Get the end of the lines an added line was cut into.
+   *
+   * @param line the number of the added line
+   * @return the index after its last cut line
+   */
+  private int lineEnd(final int line) {
+    return line + 1 < this.addedLines ? this.lineStarts[line + 1] : this.lines.size();
+  }
+
+  /**
+   * <p>Make this pagination searchable with {@link #filter(String, String)}.</p>
+   * <p>This indexes the words of the lines already added, after that every line is indexed as
+   * it's added. The index costs memory for every line, so only paginations that will be searched
+   * should be made searchable.</p>
+   * <p>A line added once this pagination is searchable is matched by its whole text, even if it was
+   * cut into several. Lines added before can't be told apart from the parts they were cut into, so
+   * each of those is matched on its own.</p>
+   *
+   * @return this pagination
+   * @throws IllegalStateException if the lines of this pagination come from a {@link PaginationSource}
+   */
+  public @NotNull Pagination searchable() {
+    this.checkNoSource();
+    if (this.index == null) {
+      this.index();
     }
     return this;
   }
 
+  /**
+   * Index the lines that are stored now, each on its own.
+   */
+  private void index() {
+    this.index = new LineIndex();
+    this.lineStarts = new int[Math.max(16, this.lines.size())];
+    this.addedLines = 0;
+    for (int i = 0; i < this.lines.size(); i++) {
+      this.startLine(i);
+      this.index.add(i, this.plainText(this.lines.get(i)));
+    }
+  }
+
+  /**
+   * Forget the index after lines were changed through {@link #lines()}, it's built again when it's next used.
+   */
+  private void linesChanged() {
+    if (this.index != null) {
+      this.indexStale = true;
+    }
+  }
+
+  private void reindexIfStale() {
+    if (this.indexStale) {
+      this.indexStale = false;
+      this.index();
+    }
+  }
+
+  /**
+   * Check whether this pagination is searchable.
+   *
+   * @return whether it's searchable
+   * @see #searchable()
+   */
+  public boolean isSearchable() {
+    return this.index != null;
+  }
+
+  /**
+   * <p>Get a pagination of the lines matching a query, with the same header, footer and options as
+   * this one. A line matches if it has a word starting with each word of the query, ignoring case,
+   * so {@code "warp net"} matches "Warp Nether". A query without words matches every line.</p>
+   * <p>Finding the lines takes time proportional to the number of matches, not the number of
+   * lines. The result holds the lines that matched when it was made, lines added later aren't in
+   * it. A line that was cut is matched by its whole text and shows up with all of its parts.</p>
+   *
+   * @param query the query
+   * @param movePageCommand the command for traversing pages of the result, it should include
+   *                        the query so the command can filter again
+   * @return the matching lines
+   * @throws IllegalStateException if this pagination isn't {@link #searchable()}
+   */
+  public @NotNull Pagination filter(final @NotNull String query, final @NotNull String movePageCommand) {
+    if (this.index == null) {
+      throw new IllegalStateException("This pagination isn't searchable");
+    }
+    this.reindexIfStale();
+    final int[] matches = this.index.search(query);
+    final int[] starts;
+    if (matches == null) {
+      starts = null;
+    } else {
+      // each match shows every line it was cut into, found by where the matches start in the result
+      starts = new int[matches.length + 1];
+      for (int i = 0, line = 0; i < matches.length; i++) {
+        line = Arrays.binarySearch(this.lineStarts, line, this.addedLines, matches[i]);
+        starts[i + 1] = starts[i] + this.lineEnd(line) - matches[i];
+      }
+    }
+    final int size = starts == null ? this.lines.size() : starts[matches.length];
+    final List<Component> lines = new AbstractList<>() {
+      @Override
+      public Component get(final int index) {
+        if (starts == null) {
+          return Pagination.this.lines.get(index);
+        }
+        final int found = Arrays.binarySearch(starts, index);
+        // an index inside a match's lines isn't found, but is just before where it would be
+        final int match = found >= 0 ? found : -found - 2;
+        return Pagination.this.lines.get(matches[match] + index - starts[match]);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+    // the lines were cut when they were added, so the result doesn't cut them again
+    return new Pagination(this.header, movePageCommand, PaginationSource.of(lines))
+        .footer(this.footer)
+        .nextPageButton(this.nextPageButton)
+        .prevPageButton(this.prevPageButton)
+        .validButtonColor(this.validButtonColor)
+        .invalidButtonColor(this.invalidButtonColor)
+        .pageCounterColor(this.pageCounterColor)
+        .hoverTextColor(this.hoverTextColor)
+        .linesPerPage(this.linesPerPage)
+        .maxChatWidth(Integer.MAX_VALUE);
+  }
+
   /**
    * Get the number of pages for this pagination.
    *
    * @return number of pages
    */
   public int numPages() {
-    return (int) Math.ceil((double) this.lines.size() / this.linesPerPage);
+    return (int) Math.ceil((double) this.lineCount() / this.linesPerPage);
   }
 
   /**
@@ -138,65 +355,136 @@ public class Pagination {
    * @return list of lines for the desired page
    */
   public @NotNull List<Component> render(final @Range(from = 1, to = Integer.MAX_VALUE) int page) {
-    if (page > this.numPages()) {
-      throw new InvalidPageException();
+    final MetricsListener metrics = Metrics.listener;
+    if (metrics == null) {
+      return this.renderPage(page);
     }
+    final long start = System.nanoTime();
+    final List<Component> rendered = this.renderPage(page);
+    metrics.record(MetricsListener.Operation.RENDER, this.lineCount(), rendered.size(), System.nanoTime() - start);
+    return rendered;
+  }
 
-    final List<Component> lines = new LinkedList<>();
-    final boolean hasPrevPage = page > 1;
-    final boolean hasNextPage = page < this.numPages();
-
-    Component header = Component.empty();
+  private @NotNull List<Component> renderPage(final int page) {
+    final int numPages = this.numPages();
+    if (page > numPages) {
+      throw new InvalidPageException();
+    }
 
-    if (hasPrevPage) {
-      header = header.append(
-          this.prevPageButton.color(this.validButtonColor)
-              .hoverEvent(
-                  HoverEvent.showText(Component.text("Click to go to the previous page.", this.hoverTextColor))
-              )
-              .clickEvent(ClickEvent.runCommand(this.movePageCommand + (page - 1)))
-      );
+    final List<Component> body;
+    final int firstLine = (page - 1) * this.linesPerPage;
+    if (this.source == null) {
+      body = this.lines.subList(firstLine, Math.min(firstLine + this.linesPerPage, this.lines.size()));
     } else {
-      header = header.append(
-          this.prevPageButton.color(this.invalidButtonColor)
-              .hoverEvent(HoverEvent.showText(Component.text("No previous page.", this.hoverTextColor)))
-      );
+      body = this.sourcePage(page, firstLine);
     }
 
-    header = header.append(Component.space()).append(this.header()).append(Component.text(" - Page " +
-        page + "/" + this.numPages()).color(this.pageCounterColor)).append(Component.space());
+    final List<Component> lines = new ArrayList<>(body.size() + 2);
+    lines.add(this.pageHeader(page, numPages));
+    lines.addAll(body);
 
-    if (hasNextPage) {
-      header = header.append(
-          this.nextPageButton.color(this.validButtonColor)
-              .hoverEvent(
-                  HoverEvent.showText(Component.text("Click to go to the next page.", this.hoverTextColor))
-              )
-              .clickEvent(ClickEvent.runCommand(this.movePageCommand + (page + 1)))
-      );
-    } else {
-      header = header.append(
-          this.nextPageButton.color(this.invalidButtonColor)
-              .hoverEvent(HoverEvent.showText(Component.text("No next page.", this.hoverTextColor)))
-      );
+    if (this.footerVisible) {
+      lines.add(this.footer);
     }
 
-    lines.add(header);
+    return lines;
+  }
 
-    int currentLine = ((page - 1) * this.linesPerPage);
-    for (int i = 0; i < this.linesPerPage; i++) {
-      if (currentLine >= this.lines.size()) {
-        break;
+  /**
+   * Pull the lines of a page from the source, or get them from the cache if it's still there.
+   *
+   * @param page the page
+   * @param firstLine the index of the first line of the page
+   * @return the lines of the page
+   */
+  private @NotNull List<Component> sourcePage(final int page, final int firstLine) {
+    List<Component> body = null;
+    final long generation;
+    synchronized (this.pages) {
+      generation = this.pagesGeneration;
+      if (this.cachedPages > 0) {
+        body = this.pages.get(page);
       }
-      lines.add(this.lines.get(currentLine));
-      currentLine++;
     }
+    if (body == null) {
+      final List<? extends Component> pulled = this.source.lines(firstLine, firstLine + this.linesPerPage);
+      // the size of a source may be an estimate, a page past the end of it doesn't exist
+      if (pulled.isEmpty() && page > 1) {
+        throw new InvalidPageException();
+      }
+      body = new ArrayList<>(pulled.size());
+      for (final Component line : pulled) {
+        if (this.plainText(line).length() > this.maxChatWidth) {
+          body.addAll(this.cut(line));
+        } else {
+          body.add(line);
+        }
+      }
+      synchronized (this.pages) {
+        if (this.cachedPages > 0 && generation == this.pagesGeneration) {
+          this.pages.put(page, body);
+        }
+      }
+    }
+    return body;
+  }
 
-    if (this.plainText(this.footer).length() > 0) {
-      lines.add(this.footer);
+  /**
+   * Get the navigation header of a page, building it if it isn't cached.
+   *
+   * @param page the page
+   * @param numPages the number of pages
+   * @return the header
+   */
+  private @NotNull Component pageHeader(final int page, final int numPages) {
+    Component header;
+    Buttons buttons;
+    final long generation;
+    synchronized (this.headers) {
+      // the page counter shows the number of pages, so headers are only good while it's the same
+      if (numPages != this.headersNumPages) {
+        this.headers.clear();
+        this.headersNumPages = numPages;
+      }
+      header = this.headers.get(page);
+      buttons = this.buttons;
+      generation = this.headersGeneration;
     }
+    if (header == null) {
+      if (buttons == null) {
+        buttons = new Buttons(this.prevPageButton, this.nextPageButton, this.validButtonColor,
+            this.invalidButtonColor, this.hoverTextColor);
+      }
+      header = buttons.header(page, numPages, this.movePageCommand, this.header(), this.pageCounterColor);
+      synchronized (this.headers) {
+        if (generation == this.headersGeneration && numPages == this.headersNumPages) {
+          this.buttons = buttons;
+          this.headers.put(page, header);
+        }
+      }
+    }
+    return header;
+  }
 
-    return lines;
+  /**
+   * Clear the cached buttons and headers after an option they're built from changed.
+   */
+  private void invalidateHeaders() {
+    synchronized (this.headers) {
+      this.buttons = null;
+      this.headers.clear();
+      this.headersGeneration++;
+    }
+  }
+
+  /**
+   * Clear the cached pages after the lines or an option they're cut by changed.
+   */
+  private void invalidatePages() {
+    synchronized (this.pages) {
+      this.pages.clear();
+      this.pagesGeneration++;
+    }
   }
 
   /**
@@ -206,18 +494,27 @@ public class Pagination {
    * @param audience the audience to send the page to
    */
   public void sendPage(final @Range(from = 1, to = Integer.MAX_VALUE) int page, final @NotNull Audience audience) {
-    for (Component line : this.render(page)) {
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
+    final List<Component> rendered = this.render(page);
+    for (Component line : rendered) {
       audience.sendMessage(line);
     }
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.SEND_PAGE, this.lineCount(), rendered.size(),
+          System.nanoTime() - start);
+    }
   }
 
   /**
-   * Get a list of all lines for the pagination.
+   * Get a list of all lines for the pagination. Changes to it change the pagination, but lines
+   * added to it directly aren't cut, use {@link #addLine(Component)} or {@link #addLines(List)} for
+   * that. If the lines come from a {@link PaginationSource} this is empty and can't be changed.
    *
    * @return all lines
    */
   public @NotNull List<Component> lines() {
-    return this.lines;
+    return this.linesView;
   }
 
   /**
@@ -246,6 +543,7 @@ public class Pagination {
    */
   public @NotNull Pagination footer(final @NotNull Component footer) {
     this.footer = footer;
+    this.footerVisible = this.plainText(footer).length() > 0;
     return this;
   }
 
@@ -266,6 +564,7 @@ public class Pagination {
    */
   public @NotNull Pagination nextPageButton(final @NotNull Component nextPageButton) {
     this.nextPageButton = nextPageButton;
+    this.invalidateHeaders();
     return this;
   }
 
@@ -286,6 +585,7 @@ public class Pagination {
    */
   public @NotNull Pagination prevPageButton(final @NotNull Component prevPageButton) {
     this.prevPageButton = prevPageButton;
+    this.invalidateHeaders();
     return this;
   }
 
@@ -306,6 +606,7 @@ public class Pagination {
    */
   public @NotNull Pagination validButtonColor(final @NotNull TextColor validButtonColor) {
     this.validButtonColor = validButtonColor;
+    this.invalidateHeaders();
     return this;
   }
 
@@ -326,6 +627,7 @@ public class Pagination {
    */
   public @NotNull Pagination invalidButtonColor(final @NotNull TextColor invalidButtonColor) {
     this.invalidButtonColor = invalidButtonColor;
+    this.invalidateHeaders();
     return this;
   }
 
@@ -346,6 +648,7 @@ public class Pagination {
    */
   public @NotNull Pagination pageCounterColor(final @NotNull TextColor pageCounterColor) {
     this.pageCounterColor = pageCounterColor;
+    this.invalidateHeaders();
     return this;
   }
 
@@ -366,6 +669,7 @@ public class Pagination {
    */
   public @NotNull Pagination hoverTextColor(final @NotNull TextColor hoverTextColor) {
     this.hoverTextColor = hoverTextColor;
+    this.invalidateHeaders();
     return this;
   }
 
@@ -386,6 +690,8 @@ public class Pagination {
    */
   public @NotNull Pagination linesPerPage(final @Range(from = 0, to = Integer.MAX_VALUE) int linesPerPage) {
     this.linesPerPage = linesPerPage;
+    this.invalidateHeaders();
+    this.invalidatePages();
     return this;
   }
 
@@ -408,9 +714,63 @@ public class Pagination {
    */
   public @NotNull Pagination maxChatWidth(final @Range(from = 0, to = Integer.MAX_VALUE) int maxChatWidth) {
     this.maxChatWidth = maxChatWidth;
+    this.invalidatePages();
+    return this;
+  }
+
+  /**
+   * Get the number of recently rendered pages kept when the lines come from a {@link PaginationSource}.
+   *
+   * @return the number of cached pages
+   */
+  public int cachePages() {
+    return this.cachedPages;
+  }
+
+  /**
+   * Set the number of recently rendered pages to keep when the lines come from a
+   * {@link PaginationSource}, so rendering them again doesn't pull them from the source.
+   * The default is 0, nothing is cached.
+   *
+   * @param cachePages the number of pages to cache
+   * @return this pagination
+   */
+  public @NotNull Pagination cachePages(final @Range(from = 0, to = Integer.MAX_VALUE) int cachePages) {
+    this.cachedPages = cachePages;
+    this.invalidatePages();
+    return this;
+  }
+
+  /**
+   * Forget the cached pages, for when the lines of the {@link PaginationSource} changed.
+   *
+   * @return this pagination
+   */
+  public @NotNull Pagination clearCachedPages() {
+    this.invalidatePages();
     return this;
   }
 
+  /**
+   * Get the number of lines, or the size of the source if the lines come from one.
+   *
+   * @return the number of lines
+   */
+  private int lineCount() {
+    return this.source == null ? this.lines.size() : this.source.size();
+  }
+
+  /**
+   * Make sure lines can be added to this pagination.
+   *
+   * @throws IllegalStateException if the lines come from a source
+   */
+  private void checkNoSource() {
+    if (this.source != null) {
+      throw new IllegalStateException("The lines of this pagination come from a source");
+    }
+  }
+
   /**
    * Serialize a component to plain text via the {@link PlainTextComponentSerializer}.
    *
@@ -431,6 +791,108 @@ public class Pagination {
     return new TextComponentCutter(this.maxChatWidth - 5, this.maxChatWidth + 5).cutComponent(component);
   }
 
+  /**
+   * The lines as {@link #lines()} hands them out, so changing them also forgets the index built from them.
+   */
+  private final class LinesView extends AbstractList<Component> implements RandomAccess {
+
+    @Override
+    public Component get(final int index) {
+      return Pagination.this.lines.get(index);
+    }
+
+    @Override
+    public int size() {
+      return Pagination.this.lines.size();
+    }
+
+    @Override
+    public Component set(final int index, final @NotNull Component line) {
+      Pagination.this.checkNoSource();
+      final Component previous = Pagination.this.lines.set(index, line);
+      Pagination.this.linesChanged();
+      return previous;
+    }
+
+    @Override
+    public void add(final int index, final @NotNull Component line) {
+      Pagination.this.checkNoSource();
+      Pagination.this.lines.add(index, line);
+      this.modCount++;
+      Pagination.this.linesChanged();
+    }
+
+    @Override
+    public Component remove(final int index) {
+      final Component removed = Pagination.this.lines.remove(index);
+      this.modCount++;
+      Pagination.this.linesChanged();
+      return removed;
+    }
+
+    @Override
+    public void clear() {
+      Pagination.this.lines.clear();
+      this.modCount++;
+      Pagination.this.linesChanged();
+    }
+
+    @Override
+    protected void removeRange(final int from, final int to) {
+      Pagination.this.lines.removeRange(from, to);
+      this.modCount++;
+      Pagination.this.linesChanged();
+    }
+  }
+
+  /**
+   * The navigation buttons with their colors and hover text, all but the page to move to.
+   */
+  static final class Buttons {
+
+    private final Component prevValid, prevInvalid, nextValid, nextInvalid;
+
+    Buttons(final @NotNull Component prevPageButton, final @NotNull Component nextPageButton,
+            final @NotNull TextColor validButtonColor, final @NotNull TextColor invalidButtonColor,
+            final @NotNull TextColor hoverTextColor) {
+      this.prevValid = prevPageButton.color(validButtonColor).hoverEvent(
+          HoverEvent.showText(Component.text("Click to go to the previous page.", hoverTextColor))
+      );
+      this.prevInvalid = prevPageButton.color(invalidButtonColor).hoverEvent(
+          HoverEvent.showText(Component.text("No previous page.", hoverTextColor))
+      );
+      this.nextValid = nextPageButton.color(validButtonColor).hoverEvent(
+          HoverEvent.showText(Component.text("Click to go to the next page.", hoverTextColor))
+      );
+      this.nextInvalid = nextPageButton.color(invalidButtonColor).hoverEvent(
+          HoverEvent.showText(Component.text("No next page.", hoverTextColor))
+      );
+    }
+
+    /**
+     * Build the navigation header of a page.
+     *
+     * @param page the page
+     * @param numPages the number of pages
+     * @param movePageCommand the command for moving pages, ending with a space
+     * @param header the header between the buttons
+     * @param pageCounterColor the color of the page counter
+     * @return the header
+     */
+    @NotNull Component header(final int page, final int numPages, final @NotNull String movePageCommand,
+                              final @NotNull Component header, final @NotNull TextColor pageCounterColor) {
+      final Component prev = page > 1
+          ? this.prevValid.clickEvent(ClickEvent.runCommand(movePageCommand + (page - 1)))
+          : this.prevInvalid;
+      final Component next = page < numPages
+          ? this.nextValid.clickEvent(ClickEvent.runCommand(movePageCommand + (page + 1)))
+          : this.nextInvalid;
+      return Component.empty().append(prev).append(Component.space()).append(header)
+          .append(Component.text(" - Page " + page + "/" + numPages).color(pageCounterColor))
+          .append(Component.space()).append(next);
+    }
+  }
+
   /**
    * Thrown if an invalid page is provided in {@link #render(int)}.
    */
@@ -0,0 +1,236 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.identity.Identity;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Range;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Keeps track of the {@link Pagination} each audience is looking at, so the command in the
+ * page buttons can find it again.</p>
+ * <p>Every pagination opened here gets a token in its move page command, so clicking a button runs
+ * {@code /command <token> <page>}. Pass both to {@link #sendPage(Audience, String, int)} from the
+ * command. A click on a pagination that was replaced, expired or evicted doesn't match the token
+ * and fails with a {@link Result} instead of showing the wrong list.</p>
+ * <p>Sessions expire when they haven't been used for the time to live, and the least recently
+ * used session is evicted when there are too many, so memory stays bounded however many
+ * audiences open lists. Audiences are told apart by their {@link Identity#UUID}, or by the
+ * audience itself if it has none.</p>
+ *
+ * @author Majekdor
+ */
+public final class PaginationSessions {
+
+  private final String command;
+  private final long timeToLive;
+  private final int maxSessions;
+  private final LongSupplier clock;
+  private final Map<Object, Session> sessions;
+
+  /**
+   * Create a new session registry.
+   *
+   * @param command the command that moves pages, it gets the token and the page as arguments
+   * @param timeToLive how long a session is kept after it was last used
+   * @param maxSessions the most sessions kept at once
+   */
+  public PaginationSessions(final @NotNull String command, final @NotNull Duration timeToLive,
+                            final @Range(from = 1, to = Integer.MAX_VALUE) int maxSessions) {
+    this(command, timeToLive, maxSessions, System::nanoTime);
+  }
+
+  PaginationSessions(final @NotNull String command, final @NotNull Duration timeToLive, final int maxSessions,
+                     final @NotNull LongSupplier clock) {
+    this.command = command.trim();
+    this.timeToLive = timeToLive.toNanos();
+    this.maxSessions = maxSessions;
+    this.clock = clock;
+    this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Object, Session> eldest) {
+        return this.size() > PaginationSessions.this.maxSessions;
+      }
+    };
+  }
+
+  /**
+   * Open a new pagination for an audience, replacing the one it had open. Add lines to it and
+   * send it the first page as usual.
+   *
+   * @param audience the audience
+   * @param header the header for the top of the page
+   * @return the pagination
+   */
+  public synchronized @NotNull Pagination open(final @NotNull Audience audience, final @NotNull Component header) {
+    this.expire();
+    final String token = Integer.toString(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE), 36);
+    final Pagination pagination = new Pagination(header, this.command + " " + token);
+    this.sessions.put(key(audience), new Session(token, pagination, this.clock.getAsLong()));
+    return pagination;
+  }
+
+  /**
+   * Get the pagination an audience has open.
+   *
+   * @param audience the audience
+   * @return the pagination, or null if it has none or it expired
+   */
+  public synchronized @Nullable Pagination get(final @NotNull Audience audience) {
+    final Session session = this.session(key(audience));
+    return session == null ? null : session.pagination;
+  }
+
+  /**
+   * Send a page of the pagination an audience has open, if the token from the command is the one
+   * of that pagination.
+   *
+   * @param audience the audience
+   * @param token the token from the command
+   * @param page the page from the command
+   * @return what happened
+   */
+  public @NotNull Result sendPage(final @NotNull Audience audience, final @NotNull String token, final int page) {
+    final Pagination pagination;
+    synchronized (this) {
+      final Session session = this.session(key(audience));
+      if (session == null) {
+        return Result.NO_SESSION;
+      }
+      if (!session.token.equals(token)) {
+        return Result.STALE;
+      }
+      pagination = session.pagination;
+    }
+    if (page < 1 || page > pagination.numPages()) {
+      return Result.INVALID_PAGE;
+    }
+    pagination.sendPage(page, audience);
+    return Result.SENT;
+  }
+
+  /**
+   * Close the pagination an audience has open, for example when it leaves.
+   *
+   * @param audience the audience
+   */
+  public synchronized void close(final @NotNull Audience audience) {
+    this.sessions.remove(key(audience));
+  }
+
+  /**
+   * Get the number of sessions, including expired ones that haven't been removed yet.
+   *
+   * @return the number of sessions
+   */
+  public synchronized int size() {
+    return this.sessions.size();
+  }
+
+  /**
+   * Remove every expired session. This happens on its own whenever a pagination is opened, but
+   * can be scheduled as well to free memory sooner.
+   */
+  public synchronized void expire() {
+    final long now = this.clock.getAsLong();
+    // least recently used first, so the expired sessions are all at the start
+    final Iterator<Session> iterator = this.sessions.values().iterator();
+    while (iterator.hasNext() && iterator.next().expired(now, this.timeToLive)) {
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Get a session and mark it as used, or remove it if it expired.
+   *
+   * @param key the key of the audience
+   * @return the session, or null if there is none
+   */
+  private @Nullable Session session(final @NotNull Object key) {
+    final Session session = this.sessions.get(key);
+    if (session == null) {
+      return null;
+    }
+    final long now = this.clock.getAsLong();
+    if (session.expired(now, this.timeToLive)) {
+      this.sessions.remove(key);
+      return null;
+    }
+    session.lastUsed = now;
+    return session;
+  }
+
+  private static @NotNull Object key(final @NotNull Audience audience) {
+    return audience.get(Identity.UUID).map(uuid -> (Object) uuid).orElse(audience);
+  }
+
+  /**
+   * What happened when a page was requested.
+   */
+  public enum Result {
+    /**
+     * The page was sent.
+     */
+    SENT,
+    /**
+     * The audience has no pagination open, or it expired or was evicted.
+     */
+    NO_SESSION,
+    /**
+     * The token is from a pagination the audience had open before.
+     */
+    STALE,
+    /**
+     * The pagination doesn't have the page.
+     */
+    INVALID_PAGE
+  }
+
+  private static final class Session {
+
+    private final String token;
+    private final Pagination pagination;
+    private long lastUsed;
+
+    private Session(final @NotNull String token, final @NotNull Pagination pagination, final long lastUsed) {
+      this.token = token;
+      this.pagination = pagination;
+      this.lastUsed = lastUsed;
+    }
+
+    private boolean expired(final long now, final long timeToLive) {
+      return now - this.lastUsed >= timeToLive;
+    }
+  }
+}
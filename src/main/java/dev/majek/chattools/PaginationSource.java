@@ -0,0 +1,130 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>Supplies the lines of a {@link Pagination} on demand, so a long list never has to be built
+ * just to show one page of it.</p>
+ * <p>A pagination with a source only asks it for the lines of the page being rendered, and only
+ * those are measured and cut. The size may be an estimate, a page past the real end of the lines
+ * is treated like any other invalid page.</p>
+ *
+ * @author Majekdor
+ */
+public interface PaginationSource {
+
+  /**
+   * Create a source for lines that are already in a list. The list is read, not copied, so
+   * lines added to it later will show up.
+   *
+   * @param lines the lines
+   * @return the source
+   */
+  static @NotNull PaginationSource of(final @NotNull List<? extends Component> lines) {
+    // the list may have shrunk since its size was read, a page past the end is empty
+    return ranged(lines::size, (from, to) -> from >= lines.size() ? Collections.emptyList()
+        : lines.subList(from, Math.min(to, lines.size())));
+  }
+
+  /**
+   * Create a source that builds a line from its index.
+   *
+   * @param size the number of lines, or an estimate of it
+   * @param line the function building the line at an index
+   * @return the source
+   */
+  static @NotNull PaginationSource indexed(final @NotNull IntSupplier size,
+                                           final @NotNull IntFunction<? extends Component> line) {
+    return new PaginationSources.Indexed(size, line);
+  }
+
+  /**
+   * Create a source that loads a range of lines at once, like a database query with an offset
+   * and a limit.
+   *
+   * @param size the number of lines, or an estimate of it
+   * @param loader the loader
+   * @return the source
+   */
+  static @NotNull PaginationSource ranged(final @NotNull IntSupplier size, final @NotNull RangeLoader loader) {
+    return new PaginationSources.Ranged(size, loader);
+  }
+
+  /**
+   * <p>Create a source that walks an iterator over the lines.</p>
+   * <p>Moving forward continues the iterator from where the last page ended. Moving back to
+   * an earlier page starts over with a new iterator from the supplier.</p>
+   *
+   * @param size the number of lines, or an estimate of it
+   * @param iterators supplies a new iterator starting at the first line
+   * @return the source
+   */
+  static @NotNull PaginationSource iterated(
+      final @NotNull IntSupplier size, final @NotNull Supplier<? extends Iterator<? extends Component>> iterators) {
+    return new PaginationSources.Iterated(size, iterators);
+  }
+
+  /**
+   * Get the number of lines. This may be an estimate, it's only used for the number of pages.
+   *
+   * @return the number of lines
+   */
+  int size();
+
+  /**
+   * Get the lines from {@code from}, inclusive, to {@code to}, exclusive. If there are fewer
+   * lines than asked for, only the ones that exist are returned.
+   *
+   * @param from the index of the first line
+   * @param to the index after the last line
+   * @return the lines
+   */
+  @NotNull List<? extends Component> lines(int from, int to);
+
+  /**
+   * Loads a range of lines.
+   */
+  @FunctionalInterface
+  interface RangeLoader {
+
+    /**
+     * Load the lines from {@code from}, inclusive, to {@code to}, exclusive.
+     *
+     * @param from the index of the first line
+     * @param to the index after the last line
+     * @return the lines, fewer than asked for if there aren't that many
+     */
+    @NotNull List<? extends Component> load(int from, int to);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The implementations of {@link PaginationSource}.
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class PaginationSources {
+
+  private PaginationSources() {
+  }
+
+  /**
+   * Builds each line from its index.
+   */
+  static final class Indexed implements PaginationSource {
+
+    private final IntSupplier size;
+    private final IntFunction<? extends Component> line;
+
+    Indexed(final @NotNull IntSupplier size, final @NotNull IntFunction<? extends Component> line) {
+      this.size = size;
+      this.line = line;
+    }
+
+    @Override
+    public int size() {
+      return this.size.getAsInt();
+    }
+
+    @Override
+    public @NotNull List<? extends Component> lines(final int from, final int to) {
+      final int end = Math.min(to, this.size());
+      if (from >= end) {
+        return Collections.emptyList();
+      }
+      final List<Component> lines = new ArrayList<>(end - from);
+      for (int i = from; i < end; i++) {
+        lines.add(this.line.apply(i));
+      }
+      return lines;
+    }
+  }
+
+  /**
+   * Loads a whole range at once.
+   */
+  static final class Ranged implements PaginationSource {
+
+    private final IntSupplier size;
+    private final PaginationSource.RangeLoader loader;
+
+    Ranged(final @NotNull IntSupplier size, final @NotNull PaginationSource.RangeLoader loader) {
+      this.size = size;
+      this.loader = loader;
+    }
+
+    @Override
+    public int size() {
+      return this.size.getAsInt();
+    }
+
+    @Override
+    public @NotNull List<? extends Component> lines(final int from, final int to) {
+      return from >= to ? Collections.emptyList() : this.loader.load(from, to);
+    }
+  }
+
+  /**
+   * Walks an iterator, keeping it between calls so paging forward doesn't start over.
+   */
+  static final class Iterated implements PaginationSource {
+
+    private final IntSupplier size;
+    private final Supplier<? extends Iterator<? extends Component>> iterators;
+    private Iterator<? extends Component> iterator = null;
+    private int position = 0;
+
+    Iterated(final @NotNull IntSupplier size,
+             final @NotNull Supplier<? extends Iterator<? extends Component>> iterators) {
+      this.size = size;
+      this.iterators = iterators;
+    }
+
+    @Override
+    public int size() {
+      return this.size.getAsInt();
+    }
+
+    @Override
+    public synchronized @NotNull List<? extends Component> lines(final int from, final int to) {
+      if (this.iterator == null || from < this.position) {
+        this.iterator = this.iterators.get();
+        this.position = 0;
+      }
+      while (this.position < from && this.iterator.hasNext()) {
+        this.iterator.next();
+        this.position++;
+      }
+      final List<Component> lines = new ArrayList<>(Math.max(0, to - from));
+      while (this.position < to && this.iterator.hasNext()) {
+        lines.add(this.iterator.next());
+        this.position++;
+      }
+      return lines;
+    }
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>A fixed set of colors that every other color can be remapped to, like the 16 named colors for
+ * old clients or a server's own palette.</p>
+ * <p>The nearest palette color is found by distance in the OKLab color space, where equal distances
+ * look about equally different. That search is done once for every cell of a 32x32x32 grid over rgb
+ * when the palette is created, so remapping a color afterwards is a single table lookup. A color is
+ * remapped to the color nearest to the center of its cell, which is at most 4 steps per channel away.</p>
+ * <p>Small palettes are searched color by color. Larger ones are put in a k-d tree first, so even a
+ * palette of thousands of colors is created in a few milliseconds.</p>
+ *
+ * @author Majekdor
+ * @see MiniMessageWrapper.Builder#downsampleTo(Palette)
+ */
+public final class Palette {
+
+  private static final int BITS = 5;
+  private static final int SHIFT = 8 - BITS;
+  private static final int CELLS = 1 << (BITS * 3);
+  // up to this many colors a plain scan is quicker than building a tree
+  private static final int MAX_SCANNED = 32;
+
+  private static final Palette NAMED = new Palette(List.copyOf(NamedTextColor.NAMES.values()));
+
+  private final List<TextColor> colors;
+  private final TextColor[] entries;
+  // the values of the entries sorted, and the entries in that order, to find exact matches
+  private final int[] sortedValues;
+  private final TextColor[] sortedEntries;
+  // for each cell, the index of its nearest color in entries
+  private final short[] table;
+
+  private Palette(final @NotNull List<TextColor> colors) {
+    if (colors.isEmpty()) {
+      throw new IllegalArgumentException("A palette needs at least one color");
+    }
+    if (colors.size() > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("A palette can't have more than " + Short.MAX_VALUE + " colors");
+    }
+    this.colors = colors;
+    this.entries = colors.toArray(new TextColor[0]);
+    this.sortedEntries = this.entries.clone();
+    Arrays.sort(this.sortedEntries, Comparator.comparingInt(TextColor::value));
+    this.sortedValues = new int[this.sortedEntries.length];
+    for (int i = 0; i < this.sortedEntries.length; i++) {
+      this.sortedValues[i] = this.sortedEntries[i].value();
+    }
+
+    final double[][] labs = new double[this.entries.length][];
+    for (int i = 0; i < this.entries.length; i++) {
+      labs[i] = okLab(this.entries[i].value());
+    }
+    this.table = new short[CELLS];
+    final KdTree tree = labs.length > MAX_SCANNED ? new KdTree(labs) : null;
+    final int half = 1 << (SHIFT - 1);
+    for (int cell = 0; cell < CELLS; cell++) {
+      final int r = ((cell >> (BITS * 2)) << SHIFT) + half;
+      final int g = (((cell >> BITS) & ((1 << BITS) - 1)) << SHIFT) + half;
+      final int b = ((cell & ((1 << BITS) - 1)) << SHIFT) + half;
+      final double[] lab = okLab((r << 16) | (g << 8) | b);
+      this.table[cell] = (short) (tree != null ? tree.nearest(lab) : scan(labs, lab));
+    }
+  }
+
+  /**
+   * Get the palette of the 16 {@link NamedTextColor}s.
+   *
+   * @return the named palette
+   */
+  public static @NotNull Palette named() {
+    return NAMED;
+  }
+
+  /**
+   * Create a palette of the colors.
+   *
+   * @param colors the colors
+   * @return the palette
+   * @throws IllegalArgumentException if there are no colors
+   */
+  public static @NotNull Palette of(final @NotNull TextColor... colors) {
+    return new Palette(List.of(colors));
+  }
+
+  /**
+   * Create a palette of the colors.
+   *
+   * @param colors the colors
+   * @return the palette
+   * @throws IllegalArgumentException if there are no colors
+   */
+  public static @NotNull Palette of(final @NotNull Collection<? extends TextColor> colors) {
+    return new Palette(List.copyOf(colors));
+  }
+
+  /**
+   * Get the palette color nearest to a color. Colors in the palette map to themselves.
+   *
+   * @param color the color
+   * @return the nearest palette color
+   */
+  public @NotNull TextColor nearest(final @NotNull TextColor color) {
+    final int rgb = color.value();
+    final int cell = ((rgb >> (16 + SHIFT)) << (BITS * 2)) | (((rgb >> (8 + SHIFT)) & ((1 << BITS) - 1)) << BITS)
+        | ((rgb >> SHIFT) & ((1 << BITS) - 1));
+    final TextColor nearest = this.entries[this.table[cell]];
+    if (nearest.value() != rgb) {
+      // the cell's nearest may not be the color itself when it's in the palette and near a cell edge
+      final int exact = Arrays.binarySearch(this.sortedValues, rgb);
+      if (exact >= 0) {
+        return this.sortedEntries[exact];
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Get the colors of this palette.
+   *
+   * @return the colors
+   */
+  public @NotNull List<TextColor> colors() {
+    return this.colors;
+  }
+
+  @Override
+  public @NotNull String toString() {
+    return "Palette" + Arrays.toString(this.entries);
+  }
+
+  /**
+   * Find the nearest color by checking all of them, the first one wins a tie.
+   */
+  private static int scan(final double @NotNull [] @NotNull [] labs, final double @NotNull [] lab) {
+    int nearest = 0;
+    double nearestDistance = Double.MAX_VALUE;
+    for (int i = 0; i < labs.length; i++) {
+      final double distance = distance(labs[i], lab);
+      if (distance < nearestDistance) {
+        nearest = i;
+        nearestDistance = distance;
+      }
+    }
+    return nearest;
+  }
+
+  private static double distance(final double @NotNull [] a, final double @NotNull [] b) {
+    final double dl = a[0] - b[0];
+    final double da = a[1] - b[1];
+    final double db = a[2] - b[2];
+    return dl * dl + da * da + db * db;
+  }
+
+  /**
+   * Convert an rgb color to OKLab.
+   */
+  static double @NotNull [] okLab(final int rgb) {
+    final double r = linear((rgb >> 16) & 0xFF);
+    final double g = linear((rgb >> 8) & 0xFF);
+    final double b = linear(rgb & 0xFF);
+    final double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+    final double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+    final double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+    return new double[] {
+        0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s,
+        1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s,
+        0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s
+    };
+  }
+
+  private static double linear(final int channel) {
+    final double c = channel / 255.0;
+    return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+  }
+
+  /**
+   * A k-d tree over the colors in OKLab, kept implicitly in one array: the median of each range is
+   * its node, the halves before and after it are its children. It finds the same nearest color as
+   * {@link #scan(double[][], double[])}, ties included.
+   */
+  private static final class KdTree {
+
+    private final double[][] labs;
+    private final Integer[] order;
+    private final byte[] axes;
+    // the search in progress, the tree is only used while the palette is created
+    private int nearest;
+    private double nearestDistance;
+
+    private KdTree(final double @NotNull [] @NotNull [] labs) {
+      this.labs = labs;
+      this.order = new Integer[labs.length];
+      for (int i = 0; i < labs.length; i++) {
+        this.order[i] = i;
+      }
+      this.axes = new byte[labs.length];
+      this.build(0, labs.length);
+    }
+
+    private void build(final int from, final int to) {
+      if (to - from <= 1) {
+        return;
+      }
+      // split along the axis the colors are most spread out on
+      int axis = 0;
+      double widest = -1;
+      for (int a = 0; a < 3; a++) {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+          min = Math.min(min, this.labs[this.order[i]][a]);
+          max = Math.max(max, this.labs[this.order[i]][a]);
+        }
+        if (max - min > widest) {
+          widest = max - min;
+          axis = a;
+        }
+      }
+      final int splitAxis = axis;
+      Arrays.sort(this.order, from, to, Comparator.comparingDouble(i -> this.labs[i][splitAxis]));
+      final int mid = (from + to) >>> 1;
+      this.axes[mid] = (byte) axis;
+      this.build(from, mid);
+      this.build(mid + 1, to);
+    }
+
+    private int nearest(final double @NotNull [] lab) {
+      this.nearest = -1;
+      this.nearestDistance = Double.MAX_VALUE;
+      this.search(0, this.order.length, lab);
+      return this.nearest;
+    }
+
+    private void search(final int from, final int to, final double @NotNull [] lab) {
+      if (from >= to) {
+        return;
+      }
+      final int mid = (from + to) >>> 1;
+      final int index = this.order[mid];
+      final double distance = distance(this.labs[index], lab);
+      if (distance < this.nearestDistance || (distance == this.nearestDistance && index < this.nearest)) {
+        this.nearest = index;
+        this.nearestDistance = distance;
+      }
+      final double diff = lab[this.axes[mid]] - this.labs[index][this.axes[mid]];
+      if (diff < 0) {
+        this.search(from, mid, lab);
+        // a color on the other side can only be as near if the split is, ties count too
+        if (diff * diff <= this.nearestDistance) {
+          this.search(mid + 1, to, lab);
+        }
+      } else {
+        this.search(mid + 1, to, lab);
+        if (diff * diff <= this.nearestDistance) {
+          this.search(from, mid, lab);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Applies a function to a batch of strings, splitting large batches across threads.
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class ParallelBatch {
+
+  /**
+   * Batches up to this size, and the chunks large batches are split into, run on one thread.
+   */
+  static final int CHUNK_SIZE = 64;
+
+  private ParallelBatch() {
+  }
+
+  /**
+   * Apply the function to every input, returning the results in input order.
+   *
+   * @param inputs the inputs
+   * @param function the function
+   * @param executor the executor to split large batches across
+   * @param <T> the result type
+   * @return the results, in the same order as the inputs
+   */
+  @SuppressWarnings("unchecked")
+  static <T> @NotNull List<T> map(final @NotNull List<String> inputs, final @NotNull Function<String, T> function,
+                                  final @NotNull Executor executor) {
+    if (inputs.size() <= CHUNK_SIZE) {
+      final List<T> results = new ArrayList<>(inputs.size());
+      for (String input : inputs) {
+        results.add(function.apply(input));
+      }
+      return Collections.unmodifiableList(results);
+    }
+
+    final String[] array = inputs.toArray(new String[0]);
+    final Object[] results = new Object[array.length];
+    if (executor instanceof ForkJoinPool) {
+      ((ForkJoinPool) executor).invoke(new Task(array, results, function, 0, array.length));
+    } else {
+      final CompletableFuture<?>[] chunks = new CompletableFuture<?>[(array.length + CHUNK_SIZE - 1) / CHUNK_SIZE];
+      for (int i = 0; i < chunks.length; i++) {
+        final int from = i * CHUNK_SIZE;
+        final int to = Math.min(from + CHUNK_SIZE, array.length);
+        chunks[i] = CompletableFuture.runAsync(() -> apply(array, results, function, from, to), executor);
+      }
+      try {
+        CompletableFuture.allOf(chunks).join();
+      } catch (CompletionException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        throw ex;
+      }
+    }
+    return Collections.unmodifiableList(Arrays.asList((T[]) results));
+  }
+
+  private static void apply(final @NotNull String[] inputs, final @NotNull Object[] results,
+                            final @NotNull Function<String, ?> function, final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      results[i] = function.apply(inputs[i]);
+    }
+  }
+
+  /**
+   * Splits a range in half until it's small enough to run on one thread.
+   */
+  private static final class Task extends RecursiveAction {
+
+    private final String[] inputs;
+    private final Object[] results;
+    private final Function<String, ?> function;
+    private final int from, to;
+
+    private Task(final @NotNull String[] inputs, final @NotNull Object[] results,
+                 final @NotNull Function<String, ?> function, final int from, final int to) {
+      this.inputs = inputs;
+      this.results = results;
+      this.function = function;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= CHUNK_SIZE) {
+        apply(this.inputs, this.results, this.function, this.from, this.to);
+        return;
+      }
+      final int middle = (this.from + this.to) >>> 1;
+      invokeAll(new Task(this.inputs, this.results, this.function, this.from, middle),
+          new Task(this.inputs, this.results, this.function, middle, this.to));
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded, least recently used cache of parsed components keyed by their input.
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class ParseCache {
+
+  private final Map<String, Component> entries;
+  private final int maximumEntries;
+  private final long maximumWeight;
+  private long weight;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder loadTime = new LongAdder();
+
+  /**
+   * Create a new cache. A bound of 0 or less means unbounded by that measure.
+   *
+   * @param maximumEntries the maximum number of entries
+   * @param maximumWeight the maximum total length of all keys
+   */
+  ParseCache(final int maximumEntries, final long maximumWeight) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.maximumEntries = maximumEntries > 0 ? maximumEntries : Integer.MAX_VALUE;
+    this.maximumWeight = maximumWeight > 0 ? maximumWeight : Long.MAX_VALUE;
+    this.weight = 0;
+  }
+
+  /**
+   * Get the cached component for the input, parsing and caching it if it's not present.
+   *
+   * @param input the input
+   * @param loader the function to parse the input with on a miss
+   * @return the component
+   */
+  @NotNull Component get(final @NotNull String input, final @NotNull Function<String, Component> loader) {
+    synchronized (this) {
+      final Component cached = this.entries.get(input);
+      if (cached != null) {
+        this.hits.increment();
+        return cached;
+      }
+    }
+
+    // parse outside the lock, if two threads miss on the same input they both parse it
+    this.misses.increment();
+    final long start = System.nanoTime();
+    final Component component = loader.apply(input);
+    this.loadTime.add(System.nanoTime() - start);
+
+    // an input heavier than the whole cache would only ever sit over the bound
+    if (input.length() > this.maximumWeight) {
+      return component;
+    }
+    synchronized (this) {
+      if (this.entries.put(input, component) == null) {
+        this.weight += input.length();
+      }
+      final Iterator<Map.Entry<String, Component>> eldest = this.entries.entrySet().iterator();
+      while (this.entries.size() > this.maximumEntries || this.weight > this.maximumWeight) {
+        this.weight -= eldest.next().getKey().length();
+        eldest.remove();
+        this.evictions.increment();
+      }
+    }
+    return component;
+  }
+
+  /**
+   * Get a snapshot of this cache's statistics.
+   *
+   * @return the statistics
+   */
+  @NotNull CacheStats stats() {
+    final int size;
+    synchronized (this) {
+      size = this.entries.size();
+    }
+    return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.loadTime.sum(), size);
+  }
+}
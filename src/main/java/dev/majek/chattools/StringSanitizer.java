@@ -0,0 +1,584 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * <p>Single-pass scanner behind {@link MiniMessageWrapper#mmString(String)} and its streaming forms.</p>
+ * <p>Legacy codes, legacy hex forms, gradient tags, hex color tags and standard tags are all
+ * recognised in one left-to-right walk over the input, writing into a single buffer. The rules
+ * are applied in the same order the old replace cascade applied them, so the output matches it.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class StringSanitizer {
+
+  // every tag stripped when standard colors are disabled
+  private static final TagMatcher STANDARD_TAGS = new TagMatcher("<black>", "<dark_blue>", "<dark_green>",
+      "<dark_aqua>", "<dark_red>", "<dark_purple>", "<gold>", "<gray>", "<dark_gray>", "<blue>", "<green>",
+      "<aqua>", "<red>", "<light_purple>", "<yellow>", "<white>", "<underlined>", "<strikethrough>", "<st>",
+      "<obfuscated>", "<obf>", "<italic>", "<em>", "<i>", "<bold>", "<b>", "<reset>", "<r>", "<pre>",
+      "</black>", "</dark_blue>", "</dark_green>", "</dark_aqua>", "</dark_red>", "</dark_purple>", "</gold>",
+      "</gray>", "</dark_gray>", "</blue>", "</green>", "</aqua>", "</red>", "</light_purple>", "</yellow>",
+      "</white>", "</underlined>", "</strikethrough>", "</st>", "</obfuscated>", "</obf>", "</italic>",
+      "</em>", "</i>", "</bold>", "</b>", "</reset>", "</r>", "</pre>");
+
+  // tags used for a hex color, in the order the old pattern tried them
+  private static final String[] HEX_TAG_NAMES = {"c", "color", "colour", ""};
+
+  // how much is read from a reader at a time
+  private static final int BUFFER_SIZE = 8192;
+
+  // how far past its start a run of removed colors or dropped hex codes is followed, and how many
+  // characters of gradient arguments are read, past that the rest is scanned like any other text
+  private static final int MAX_SKIP = 64;
+  private static final int MAX_GRADIENT_ARGS = 256;
+  // no rule reads further than this past where it starts: a spigot hex code with removed colors
+  // between every digit and a run of dropped codes before it, well under this
+  private static final int MAX_LOOKAHEAD = 1024;
+
+  private static final String GRADIENT_OPEN = "<gradient";
+  private static final String GRADIENT_CLOSE = "</gradient>";
+
+  private final boolean gradients, hexColors, standardColors, legacyColors;
+  private final ColorPolicy colorPolicy;
+
+  private final TagMatcher removedColorTags;
+  private final boolean[] removedLegacyCodes;
+
+  StringSanitizer(final boolean gradients, final boolean hexColors, final boolean standardColors,
+                  final boolean legacyColors, final @NotNull Set<NamedTextColor> removedColors,
+                  final @NotNull ColorPolicy colorPolicy) {
+    this.gradients = gradients;
+    this.hexColors = hexColors;
+    this.standardColors = standardColors;
+    this.legacyColors = legacyColors;
+    this.colorPolicy = colorPolicy;
+
+    final String[] removedColorTags = new String[removedColors.size() * 2];
+    this.removedLegacyCodes = new boolean[128];
+    int index = 0;
+    for (NamedTextColor color : removedColors) {
+      final String name = color.toString().toLowerCase(Locale.ROOT);
+      removedColorTags[index++] = "<" + name + ">";
+      removedColorTags[index++] = "</" + name + ">";
+      final Character code = MiniMessageWrapperImpl.legacyCodeFromNamed(color);
+      if (code != null) {
+        this.removedLegacyCodes[code] = true;
+      }
+    }
+    this.removedColorTags = new TagMatcher(removedColorTags);
+  }
+
+  /**
+   * Sanitize a string according to this sanitizer's options.
+   *
+   * @param input the string to sanitize
+   * @return the sanitized string
+   */
+  @NotNull String sanitize(final @NotNull CharSequence input) {
+    final StringBuilder out = new StringBuilder(input.length() + 16);
+    try {
+      this.sanitize(input, out);
+    } catch (IOException ex) {
+      // appending to a string builder never throws
+      throw new UncheckedIOException(ex);
+    }
+    return out.toString();
+  }
+
+  /**
+   * Sanitize a sequence according to this sanitizer's options, writing the result to the output.
+   *
+   * @param input the sequence to sanitize
+   * @param out where to write the sanitized sequence
+   * @throws IOException if the output can't be written to
+   */
+  void sanitize(final @NotNull CharSequence input, final @NotNull Appendable out) throws IOException {
+    final Scan scan = new Scan(out);
+    scan.run(input, input.length());
+    scan.finish();
+  }
+
+  /**
+   * Sanitize everything read from the reader according to this sanitizer's options, writing
+   * the result to the output as it goes. Only what's been read but can't be scanned yet is kept,
+   * which is never more than the buffer and the longest lookahead of any rule.
+   *
+   * @param in the reader to sanitize
+   * @param out where to write the sanitized text
+   * @throws IOException if the reader can't be read or the output can't be written to
+   */
+  void sanitize(final @NotNull Reader in, final @NotNull Appendable out) throws IOException {
+    final Scan scan = new Scan(out);
+    final StringBuilder window = new StringBuilder(BUFFER_SIZE + MAX_LOOKAHEAD);
+    final char[] buffer = new char[BUFFER_SIZE];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      window.append(buffer, 0, read);
+      // only start where everything a rule could read has been read, so nothing is scanned twice
+      window.delete(0, scan.run(window, window.length() - MAX_LOOKAHEAD));
+    }
+    scan.run(window, window.length());
+    scan.finish();
+  }
+
+  /**
+   * The state of one sanitization, so it can be carried over from one part of the input to the next.
+   */
+  private final class Scan {
+
+    private final Appendable out;
+    // the last character of the input as it would look once legacy codes were handled,
+    // this is what decides whether something is escaped by a backslash
+    private char previous = 0;
+    // a backslash is only written once we know it doesn't escape a legacy code
+    private boolean heldBackslash = false;
+
+    private Scan(final @NotNull Appendable out) {
+      this.out = out;
+    }
+
+    /**
+     * Scan the input, starting a rule at every index before the end. A rule starting before the
+     * end may read and consume up to {@link #MAX_LOOKAHEAD} characters past it.
+     *
+     * @param input the input
+     * @param end the index to stop starting rules at
+     * @return the index scanning stopped at, anything before it has been written
+     * @throws IOException if the output can't be written to
+     */
+    private int run(final @NotNull CharSequence input, final int end) throws IOException {
+      int i = 0;
+      final int length = input.length();
+      while (i < end) {
+        final char c = input.charAt(i);
+
+        if (c == '&' && i + 1 < length) {
+          // removed colors go first, before anything else can see them
+          if (isRemovedLegacyCode(input.charAt(i + 1))) {
+            i += 2;
+            continue;
+          }
+          // and anything they leave behind is seen as if they had never been there
+          final int codeIndex = skipDropped(input, i + 1);
+          if (codeIndex >= length) {
+            this.emit(c);
+            i++;
+            continue;
+          }
+          final char code = input.charAt(codeIndex);
+          if (codeIndex > i + 1 && isRemovedLegacyCode(code)) {
+            i = codeIndex + 1;
+            continue;
+          }
+
+          if (legacyColors) {
+            final int hex = legacyHex(input, i);
+            if (hex > 0 && this.previous == '\\') {
+              // escaped like any other code, drop the backslash and keep the code as is
+              this.heldBackslash = false;
+              this.out.append(input, i, i + hex);
+              this.previous = input.charAt(i + hex - 1);
+              i += hex;
+              continue;
+            }
+            if (hex > 0) {
+              if (hexColors) {
+                final int rgb = parseLegacyHex(input, i, hex);
+                if (!colorPolicy.isBlocked(rgb)) {
+                  this.flush();
+                  appendHexTag(this.out, input, i, hex);
+                }
+                this.previous = '>';
+              }
+              i += hex;
+              continue;
+            }
+
+            if (isLegacyCode(code)) {
+              if (this.previous == '\\') {
+                // escaped, drop the backslash and keep the code as is
+                this.heldBackslash = false;
+                this.out.append('&').append(code);
+                this.previous = code;
+              } else {
+                if (standardColors) {
+                  this.flush();
+                  this.out.append(MiniMessageWrapperImpl.CHAR_COLORS.get(code));
+                }
+                this.previous = '>';
+              }
+              i = codeIndex + 1;
+              continue;
+            }
+          } else if (isAnyLegacyCode(code)) {
+            i = codeIndex + 1;
+            continue;
+          }
+        } else if (c == '<') {
+          final int removed = removedColorTags.match(input, i);
+          if (removed > 0) {
+            i += removed;
+            continue;
+          }
+
+          final int tag = strippedTag(input, i, this.previous);
+          if (tag > 0) {
+            this.previous = '>';
+            i += tag;
+            continue;
+          }
+        }
+
+        this.emit(c);
+        i++;
+      }
+      return i;
+    }
+
+    private void emit(final char c) throws IOException {
+      if (c == '\\' && this.heldBackslash) {
+        // an escaped backslash, written as mini message reads one and escaping nothing after it
+        this.heldBackslash = false;
+        this.out.append("\\\\");
+        this.previous = 0;
+        return;
+      }
+      this.flush();
+      if (c == '\\') {
+        this.heldBackslash = true;
+      } else {
+        this.out.append(c);
+      }
+      this.previous = c;
+    }
+
+    private void flush() throws IOException {
+      if (this.heldBackslash) {
+        this.out.append('\\');
+        this.heldBackslash = false;
+      }
+    }
+
+    private void finish() throws IOException {
+      this.flush();
+    }
+  }
+
+  /**
+   * Get the length of the tag starting at the index that should be stripped, if any.
+   *
+   * @param input the input
+   * @param start the index of the opening bracket
+   * @param previous the character before the tag
+   * @return the length of the tag, or 0 if it should be kept
+   */
+  private int strippedTag(final @NotNull CharSequence input, final int start, final char previous) {
+    if (!this.gradients && previous != '\\') {
+      final int gradient = gradientTag(input, start);
+      if (gradient > 0) {
+        return gradient;
+      }
+      if (startsWith(input, GRADIENT_CLOSE, start)) {
+        return GRADIENT_CLOSE.length();
+      }
+    }
+
+    final int hexTag = hexTag(input, start, !this.hexColors);
+    if (hexTag > 0 && (!this.hexColors || this.colorPolicy.isBlocked(parseHexTag(input, start, hexTag)))) {
+      return hexTag;
+    }
+
+    if (!this.standardColors) {
+      return STANDARD_TAGS.match(input, start);
+    }
+    return 0;
+  }
+
+  /**
+   * Skip over any removed color tags and codes starting at the index, stopping after
+   * {@link #MAX_SKIP} characters. The main scan removes whatever is left of a longer run.
+   *
+   * @param input the input
+   * @param start the index to start at
+   * @return the index of the first character that isn't part of a removed color
+   */
+  private int skipRemoved(final @NotNull CharSequence input, final int start) {
+    int i = start;
+    int removed;
+    while (i < input.length() && i - start < MAX_SKIP) {
+      if (input.charAt(i) == '&' && i + 1 < input.length() && this.isRemovedLegacyCode(input.charAt(i + 1))) {
+        i += 2;
+      } else if (input.charAt(i) == '<' && (removed = this.removedColorTags.match(input, i)) > 0) {
+        i += removed;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Skip over anything that's dropped before legacy codes are parsed, so removed colors
+   * and legacy hex codes if hex colors are not parsed. Like {@link #skipRemoved(CharSequence, int)}
+   * this stops after {@link #MAX_SKIP} characters.
+   *
+   * @param input the input
+   * @param start the index to start at
+   * @return the index of the first character that isn't dropped
+   */
+  private int skipDropped(final @NotNull CharSequence input, final int start) {
+    int i = this.skipRemoved(input, start);
+    if (this.legacyColors && !this.hexColors) {
+      int hex;
+      while (i < input.length() && i - start < MAX_SKIP && input.charAt(i) == '&'
+          && (hex = this.legacyHex(input, i)) > 0) {
+        i = this.skipRemoved(input, i + hex);
+      }
+    }
+    return i;
+  }
+
+  private boolean isRemovedLegacyCode(final char code) {
+    return code < 128 && this.removedLegacyCodes[code];
+  }
+
+  private static boolean startsWith(final @NotNull CharSequence input, final @NotNull String prefix, final int start) {
+    if (start + prefix.length() > input.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (input.charAt(start + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the length of a legacy hex code starting at the index. This is '&#rrggbb', '&#rgb'
+   * or spigot's '&x&r&r&g&g&b&b'.
+   *
+   * @param input the input
+   * @param start the index of the ampersand
+   * @return the length, or 0 if there's no legacy hex code
+   */
+  private int legacyHex(final @NotNull CharSequence input, final int start) {
+    final int length = input.length();
+    if (start + 1 >= length) {
+      return 0;
+    }
+    final char type = input.charAt(start + 1);
+    if (type == '#') {
+      int digits = 0;
+      while (digits < 6 && start + 2 + digits < length && isHexDigit(input.charAt(start + 2 + digits))) {
+        digits++;
+      }
+      if (digits == 6) {
+        return 8;
+      }
+      // the short form only exists when hex colors are parsed
+      return this.hexColors && digits >= 3 ? 5 : 0;
+    } else if (type == 'x') {
+      // removed colors were always stripped first, so they don't break up the code
+      int i = start + 2;
+      for (int digits = 0; digits < 6; digits++) {
+        i = this.skipRemoved(input, i);
+        if (i + 1 >= length || input.charAt(i) != '&' || !isHexDigit(input.charAt(i + 1))) {
+          return 0;
+        }
+        i += 2;
+      }
+      return i - start;
+    }
+    return 0;
+  }
+
+  /**
+   * Get the length of a hex color tag like {@code <#rrggbb>} or {@code <color:#rrggbb>}
+   * starting at the index.
+   *
+   * @param input the input
+   * @param start the index of the opening bracket
+   * @param loose whether closing tags and tags without a color count too
+   * @return the length, or 0 if there's no hex color tag
+   */
+  private static int hexTag(final @NotNull CharSequence input, final int start, final boolean loose) {
+    int i = start + 1;
+    if (loose && i < input.length() && input.charAt(i) == '/') {
+      i++;
+    }
+    for (String name : HEX_TAG_NAMES) {
+      if (!startsWith(input, name, i)) {
+        continue;
+      }
+      int j = i + name.length();
+      if (j < input.length() && input.charAt(j) == ':') {
+        j++;
+      }
+      if (j + 7 <= input.length() && input.charAt(j) == '#' && isHexDigits(input, j + 1, 6)) {
+        j += 7;
+      } else if (!loose) {
+        continue;
+      }
+      if (j < input.length() && input.charAt(j) == '>') {
+        return j + 1 - start;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Get the length of an opening gradient tag with only hex color arguments starting at the index.
+   * Arguments longer than {@link #MAX_GRADIENT_ARGS} are no real gradient, the tag and as much
+   * of them as was read are stripped anyway so what's left can't be parsed as a gradient.
+   *
+   * @param input the input
+   * @param start the index of the opening bracket
+   * @return the length, or 0 if there's no gradient tag
+   */
+  private static int gradientTag(final @NotNull CharSequence input, final int start) {
+    if (!startsWith(input, GRADIENT_OPEN, start)) {
+      return 0;
+    }
+    int i = start + GRADIENT_OPEN.length();
+    final int argsStart = i;
+    while (i < input.length() && isGradientChar(input.charAt(i))) {
+      if (i - argsStart == MAX_GRADIENT_ARGS) {
+        return i - start;
+      }
+      i++;
+    }
+    final int args = i - argsStart;
+    if (args == 0 || args % 8 != 0 || i >= input.length() || input.charAt(i) != '>') {
+      return 0;
+    }
+    return i + 1 - start;
+  }
+
+  /**
+   * Get the color of a hex tag found with {@link #hexTag(CharSequence, int, boolean)}, or -1 if it has none.
+   */
+  private static int parseHexTag(final @NotNull CharSequence input, final int start, final int length) {
+    final int end = start + length - 1;
+    if (end - 7 < start || input.charAt(end - 7) != '#' || !isHexDigits(input, end - 6, 6)) {
+      return -1;
+    }
+    return parseHexDigits(input, end - 6, 6);
+  }
+
+  /**
+   * Get the color of a legacy hex code found with {@link #legacyHex(CharSequence, int)}.
+   */
+  private int parseLegacyHex(final @NotNull CharSequence input, final int start, final int length) {
+    if (input.charAt(start + 1) == '#') {
+      if (length == 8) {
+        return parseHexDigits(input, start + 2, 6);
+      }
+      int rgb = 0;
+      for (int i = start + 2; i < start + 5; i++) {
+        final int digit = Character.digit(input.charAt(i), 16);
+        rgb = (rgb << 8) | (digit << 4) | digit;
+      }
+      return rgb;
+    }
+    int rgb = 0;
+    for (int i = this.skipRemoved(input, start + 2); i < start + length; i = this.skipRemoved(input, i + 2)) {
+      rgb = (rgb << 4) | Character.digit(input.charAt(i + 1), 16);
+    }
+    return rgb;
+  }
+
+  /**
+   * Append a legacy hex code as mini message's '<#rrggbb>', keeping the case of the digits.
+   */
+  private void appendHexTag(final @NotNull Appendable out, final @NotNull CharSequence input,
+                            final int start, final int length) throws IOException {
+    out.append("<#");
+    if (input.charAt(start + 1) == '#') {
+      if (length == 8) {
+        out.append(input, start + 2, start + 8);
+      } else {
+        for (int i = start + 2; i < start + 5; i++) {
+          out.append(input.charAt(i)).append(input.charAt(i));
+        }
+      }
+    } else {
+      for (int i = this.skipRemoved(input, start + 2); i < start + length; i = this.skipRemoved(input, i + 2)) {
+        out.append(input.charAt(i + 1));
+      }
+    }
+    out.append('>');
+  }
+
+  private static int parseHexDigits(final @NotNull CharSequence input, final int start, final int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      value = (value << 4) | Character.digit(input.charAt(i), 16);
+    }
+    return value;
+  }
+
+  private static boolean isHexDigits(final @NotNull CharSequence input, final int start, final int count) {
+    if (start + count > input.length()) {
+      return false;
+    }
+    for (int i = start; i < start + count; i++) {
+      if (!isHexDigit(input.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isHexDigit(final char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  private static boolean isGradientChar(final char c) {
+    return c == ':' || c == '#' || isHexDigit(c);
+  }
+
+  // codes turned into tags when legacy colors are parsed: [a-f0-9l-or]
+  private static boolean isLegacyCode(final char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'l' && c <= 'o') || c == 'r';
+  }
+
+  // codes stripped when legacy colors aren't parsed: [0-9a-fA-Fk-oK-OxXrR]
+  private static boolean isAnyLegacyCode(final char c) {
+    return isHexDigit(c) || (c >= 'k' && c <= 'o') || (c >= 'K' && c <= 'O')
+        || c == 'x' || c == 'X' || c == 'r' || c == 'R';
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * <p>Matches a set of literal tags in one walk, however many tags there are.</p>
+ * <p>The tags are compiled into a trie, the goto function of an Aho-Corasick automaton. The
+ * sanitizer only ever looks for tags where it sees an opening bracket, so matching is anchored
+ * and the failure links aren't needed. Every tag ends at its closing bracket, so no tag is a
+ * prefix of another and at most one can match at a position.</p>
+ *
+ * @author Majekdor
+ */
+@ApiStatus.Internal
+final class TagMatcher {
+
+  // for each node, the characters it has edges for and the nodes those lead to
+  private char[][] keys = new char[1][0];
+  private int[][] next = new int[1][0];
+  // for each node, the length of the tag ending there, or 0
+  private int[] lengths = new int[1];
+  private int size = 1;
+
+  TagMatcher(final @NotNull String... tags) {
+    for (String tag : tags) {
+      this.add(tag);
+    }
+  }
+
+  private void add(final @NotNull String tag) {
+    int node = 0;
+    for (int i = 0; i < tag.length(); i++) {
+      int child = this.child(node, tag.charAt(i));
+      if (child < 0) {
+        child = this.newNode();
+        final int edges = this.keys[node].length;
+        this.keys[node] = Arrays.copyOf(this.keys[node], edges + 1);
+        this.next[node] = Arrays.copyOf(this.next[node], edges + 1);
+        this.keys[node][edges] = tag.charAt(i);
+        this.next[node][edges] = child;
+      }
+      node = child;
+    }
+    if (node != 0) {
+      this.lengths[node] = tag.length();
+    }
+  }
+
+  private int newNode() {
+    if (this.size == this.lengths.length) {
+      final int capacity = this.size * 2;
+      this.keys = Arrays.copyOf(this.keys, capacity);
+      this.next = Arrays.copyOf(this.next, capacity);
+      this.lengths = Arrays.copyOf(this.lengths, capacity);
+    }
+    this.keys[this.size] = new char[0];
+    this.next[this.size] = new int[0];
+    return this.size++;
+  }
+
+  private int child(final int node, final char c) {
+    final char[] keys = this.keys[node];
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == c) {
+        return this.next[node][i];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the length of the tag starting at the index, if any.
+   *
+   * @param input the input
+   * @param start the index to match at
+   * @return the length of the tag, or 0 if no tag starts there
+   */
+  int match(final @NotNull CharSequence input, final int start) {
+    int node = 0;
+    for (int i = start; i < input.length(); i++) {
+      node = this.child(node, input.charAt(i));
+      if (node < 0) {
+        return 0;
+      }
+      if (this.lengths[node] > 0) {
+        return this.lengths[node];
+      }
+    }
+    return 0;
+  }
+}
@@ -69,9 +69,15 @@ public class TextComponentCutter {
    * @return list of components of appropriate length
    */
   public @NotNull List<Component> cutComponent(@NotNull Component component) {
+    final MetricsListener metrics = Metrics.listener;
+    final long start = metrics == null ? 0 : System.nanoTime();
     this.styleStack.push(component.style());
     this.process(component);
     this.result.add(this.builder.build());
+    if (metrics != null) {
+      metrics.record(MetricsListener.Operation.CUT, Metrics.nodeCount(component), this.result.size(),
+          System.nanoTime() - start);
+    }
     return this.result;
   }
 
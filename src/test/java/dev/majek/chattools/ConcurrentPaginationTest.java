@@ -0,0 +1,129 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentPaginationTest {
+
+  private static final int WRITERS = 4;
+  private static final int READERS = 4;
+  private static final int BATCHES = 2000;
+
+  @Test
+  public void rendersStayConsistentWhileWriting() throws Exception {
+    final ConcurrentPagination pagination = new ConcurrentPagination(Component.text("Header"), "/page")
+        .footer(Component.text("Footer"));
+    final ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicBoolean writing = new AtomicBoolean(true);
+    final List<Future<?>> writers = new ArrayList<>();
+    final List<Future<?>> readers = new ArrayList<>();
+    try {
+      for (int w = 0; w < WRITERS; w++) {
+        final int writer = w;
+        writers.add(executor.submit(() -> {
+          start.await();
+          // batches of three, a render has to see all of a batch or none of it
+          for (int i = 0; i < BATCHES; i++) {
+            pagination.addLines(line(writer, i, 0), line(writer, i, 1), line(writer, i, 2));
+            if (i % 500 == 0) {
+              pagination.footer(Component.text("Footer"));
+            }
+          }
+          return null;
+        }));
+      }
+      for (int r = 0; r < READERS; r++) {
+        readers.add(executor.submit(() -> {
+          start.await();
+          int lastSize = 0;
+          while (writing.get()) {
+            final List<Component> lines = pagination.lines();
+            Assert.assertTrue(lines.size() >= lastSize);
+            Assert.assertEquals(0, lines.size() % 3);
+            lastSize = lines.size();
+
+            final int numPages = pagination.numPages();
+            if (numPages == 0) {
+              continue;
+            }
+            final List<Component> page = pagination.render(numPages);
+            final String counter = ((TextComponent) page.get(0).children().get(3)).content();
+            final int pages = Integer.parseInt(counter.substring(counter.indexOf('/') + 1));
+            Assert.assertTrue(pages >= numPages);
+            Assert.assertTrue(page.size() >= 3 && page.size() <= 10);
+            Assert.assertEquals(Component.text("Footer"), page.get(page.size() - 1));
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (final Future<?> writer : writers) {
+        writer.get(1, TimeUnit.MINUTES);
+      }
+      writing.set(false);
+      for (final Future<?> reader : readers) {
+        reader.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    final List<Component> lines = pagination.lines();
+    Assert.assertEquals(WRITERS * BATCHES * 3, lines.size());
+    for (int i = 0; i < lines.size(); i += 3) {
+      final String first = ((TextComponent) lines.get(i)).content();
+      final String batch = first.substring(0, first.length() - 1);
+      Assert.assertEquals(batch + "1", ((TextComponent) lines.get(i + 1)).content());
+      Assert.assertEquals(batch + "2", ((TextComponent) lines.get(i + 2)).content());
+    }
+  }
+
+  @Test
+  public void snapshotIgnoresLaterLines() {
+    final ConcurrentPagination pagination = new ConcurrentPagination(Component.text("Header"), "/page")
+        .addLines(Component.text("A"), Component.text("B"));
+    final List<Component> snapshot = pagination.lines();
+    pagination.addLine(Component.text("C"));
+    Assert.assertEquals(2, snapshot.size());
+    Assert.assertEquals(3, pagination.lines().size());
+  }
+
+  private static Component line(final int writer, final int batch, final int line) {
+    return Component.text(writer + "-" + batch + "-" + line);
+  }
+}
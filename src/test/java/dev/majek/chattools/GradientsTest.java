@@ -0,0 +1,116 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GradientsTest {
+
+  @Test
+  public void gradient() {
+    final Component gradient = Gradients.gradient("Majek", TextColor.color(0xff0000), TextColor.color(0x0000ff));
+    Assert.assertEquals(5, gradient.children().size());
+    Assert.assertEquals(TextColor.color(0xff0000), gradient.children().get(0).color());
+    Assert.assertEquals(TextColor.color(0x800080), gradient.children().get(2).color());
+    Assert.assertEquals(TextColor.color(0x0000ff), gradient.children().get(4).color());
+
+    // a whole phase runs the gradient backwards
+    final Component reversed = Gradients.gradient("Majek", 1, TextColor.color(0xff0000), TextColor.color(0x0000ff));
+    Assert.assertEquals(TextColor.color(0x0000ff), reversed.children().get(0).color());
+  }
+
+  @Test
+  public void repeatedRendersShareStyles() {
+    final long hits = Gradients.cacheStats().hitCount();
+    final Component first = Gradients.rainbow("Majekdor", 3);
+    final Component second = Gradients.rainbow("Majekdor", 3);
+    Assert.assertEquals(first, second);
+    for (int i = 0; i < first.children().size(); i++) {
+      Assert.assertSame(first.children().get(i).style(), second.children().get(i).style());
+    }
+    Assert.assertEquals(hits + 1, Gradients.cacheStats().hitCount());
+  }
+
+  @Test
+  public void wrapperGradientsShareStyles() {
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.standard();
+    final String gradient = "<gradient:#ff0000:#0000ff>Ma<bold>jek</bold></gradient>";
+    final List<Style> first = styles(wrapper.mmParse(gradient), new ArrayList<>());
+    final List<Style> second = styles(wrapper.mmParse(gradient), new ArrayList<>());
+
+    // the gradient runs across the bold text, one style per character
+    Assert.assertEquals(5, first.size());
+    Assert.assertEquals(TextColor.color(0xff0000), first.get(0).color());
+    for (int i = 0; i < first.size(); i++) {
+      Assert.assertSame(first.get(i), second.get(i));
+    }
+    // the colors are still mini message's own
+    for (final String tag : List.of("<gradient:red:blue:0.4>", "<gradient:red:blue:-0.6>", "<rainbow:!2>")) {
+      final String text = tag + "Majekdor";
+      Assert.assertEquals(colors(MiniMessage.miniMessage().parse(text)), colors(wrapper.mmParse(text)));
+    }
+  }
+
+  @Test
+  public void insertionsAreLeftAlone() {
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().advancedTransformations(true).build();
+    final String input = "<insert:\uE001x><gradient:red:blue>Majek</gradient></insert><insert:\uE0011\uE001g0:1>!";
+    final Component parsed = wrapper.mmParse(input);
+    Assert.assertEquals("Majek!", PlainTextComponentSerializer.plainText().serialize(parsed));
+    Assert.assertEquals(List.of("\uE001x", "\uE0011\uE001g0:1"), insertions(parsed, new ArrayList<>()));
+  }
+
+  // the styles of the characters of the text, in order
+  private static List<Style> styles(final Component component, final List<Style> styles) {
+    if (component instanceof TextComponent && !((TextComponent) component).content().isEmpty()) {
+      styles.add(component.style());
+    }
+    component.children().forEach(child -> styles(child, styles));
+    return styles;
+  }
+
+  private static List<TextColor> colors(final Component component) {
+    final List<TextColor> colors = new ArrayList<>();
+    styles(component, new ArrayList<>()).forEach(style -> colors.add(style.color()));
+    return colors;
+  }
+
+  private static List<String> insertions(final Component component, final List<String> insertions) {
+    if (component.insertion() != null && !insertions.contains(component.insertion())) {
+      insertions.add(component.insertion());
+    }
+    component.children().forEach(child -> insertions(child, insertions));
+    return insertions;
+  }
+}
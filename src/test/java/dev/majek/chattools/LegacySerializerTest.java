@@ -0,0 +1,103 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LegacySerializerTest {
+
+  @Test
+  public void onlyChangesAreWritten() {
+    final Component component = Component.text("Red", NamedTextColor.RED)
+        .append(Component.text(" still red"))
+        .append(Component.text(" bold", NamedTextColor.RED, TextDecoration.BOLD))
+        .append(Component.text(" not bold", NamedTextColor.RED))
+        .append(Component.text(" inherited"));
+    Assert.assertEquals(
+        "&cRed still red&l bold&c not bold inherited",
+        LegacySerializer.ampersand().serialize(component)
+    );
+    Assert.assertEquals(
+        "&cRed&r plain",
+        LegacySerializer.ampersand().serialize(Component.text().append(Component.text("Red", NamedTextColor.RED))
+            .append(Component.text(" plain")).build())
+    );
+  }
+
+  @Test
+  public void hexColors() {
+    final Component component = Component.text("Majekdor", TextColor.color(0xfacade));
+    Assert.assertEquals("&#facadeMajekdor", LegacySerializer.ampersand().serialize(component));
+    Assert.assertEquals("§x§f§a§c§a§d§eMajekdor", LegacySerializer.section().serialize(component));
+    Assert.assertEquals("&cMajekdor", new LegacySerializer('&', LegacySerializer.HexFormat.DOWNSAMPLE)
+        .serialize(Component.text("Majekdor", TextColor.color(0xfe5656))));
+  }
+
+  @Test
+  public void roundTrip() {
+    final String legacy = "&9&lMajek&b&odor&#facade!";
+    Assert.assertEquals(
+        LegacySerializer.ampersand().serialize(MiniMessageWrapper.legacy().mmParse(legacy)),
+        LegacySerializer.ampersand().serialize(MiniMessageWrapper.legacy().mmParse(
+            LegacySerializer.ampersand().serialize(MiniMessageWrapper.legacy().mmParse(legacy))
+        ))
+    );
+  }
+
+  @Test
+  public void textIsEscaped() {
+    final String[] texts = {"&cnot red", "&#abcdefnot hex", "&x&a&b&c&d&e&fnot spigot", "<red>not a tag"};
+    for (final String text : texts) {
+      final String legacy = LegacySerializer.ampersand().serialize(Component.text(text));
+      final Component parsed = MiniMessageWrapper.legacy().mmParse(legacy);
+      Assert.assertEquals(text, PlainTextComponentSerializer.plainText().serialize(parsed));
+      Assert.assertEquals(legacy, LegacySerializer.ampersand().serialize(parsed));
+    }
+    // a backslash before a code of the next text doesn't escape it
+    final Component path = Component.text("C:\\").append(Component.text("x", NamedTextColor.RED));
+    final String legacy = LegacySerializer.ampersand().serialize(path);
+    Assert.assertEquals("C:\\\\&cx", legacy);
+    final Component parsed = MiniMessageWrapper.legacy().mmParse(legacy);
+    Assert.assertEquals("C:\\x", PlainTextComponentSerializer.plainText().serialize(parsed));
+    Assert.assertEquals(legacy, LegacySerializer.ampersand().serialize(parsed));
+    Assert.assertEquals("a\\b \\\\\\&c", LegacySerializer.ampersand().serialize(Component.text("a\\b \\&c")));
+    // only what would be read as a code is escaped
+    Assert.assertEquals("Tom & Jerry &C &#zz",
+        LegacySerializer.ampersand().serialize(Component.text("Tom & Jerry &C &#zz")));
+    Assert.assertEquals("§cnot red", LegacySerializer.section().serialize(Component.text("§cnot red")));
+  }
+
+  @Test
+  public void translatableAsKey() {
+    Assert.assertEquals("&cblock.minecraft.stone", LegacySerializer.ampersand()
+        .serialize(Component.translatable("block.minecraft.stone", NamedTextColor.RED)));
+    Assert.assertEquals("key.jump", LegacySerializer.ampersand().serialize(Component.keybind("key.jump")));
+  }
+}
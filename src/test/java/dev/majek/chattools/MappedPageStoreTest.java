@@ -0,0 +1,103 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class MappedPageStoreTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void reopen() throws IOException {
+    final Path file = this.folder.getRoot().toPath().resolve("lines.pages");
+    // tiny segments, so lines cross from one into the next
+    try (MappedPageStore store = new MappedPageStore(file, PlainTextComponentSerializer.plainText(), 6)) {
+      for (int i = 0; i < 100; i++) {
+        store.add(Component.text("Line " + i + " ✓"));
+      }
+    }
+
+    try (MappedPageStore store = new MappedPageStore(file, PlainTextComponentSerializer.plainText(), 6)) {
+      Assert.assertEquals(100, store.size());
+      Assert.assertEquals(List.of(Component.text("Line 42 ✓"), Component.text("Line 43 ✓")), store.lines(42, 44));
+      store.add(Component.text("Line 100 ✓"));
+      Assert.assertEquals(List.of(Component.text("Line 100 ✓")), store.lines(100, 200));
+    }
+  }
+
+  @Test
+  public void paginate() throws IOException {
+    try (MappedPageStore store = MappedPageStore.open(this.folder.getRoot().toPath().resolve("history.pages"))) {
+      final Pagination pagination = new Pagination(Component.text("History"), "/history", store);
+      for (int i = 0; i < 20; i++) {
+        store.add(Component.text("Entry " + i, NamedTextColor.RED));
+      }
+      Assert.assertEquals(3, pagination.numPages());
+      final Component line = pagination.render(2).get(1);
+      Assert.assertEquals("Entry 8", PlainTextComponentSerializer.plainText().serialize(line));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void notAPageStore() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    Files.writeString(file, "Not lines at all");
+    try {
+      MappedPageStore.open(file).close();
+    } finally {
+      // it's turned down before anything is mapped, so the file is left as it was
+      Assert.assertEquals("Not lines at all", Files.readString(file));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void corruptLength() throws IOException {
+    final Path file = this.folder.getRoot().toPath().resolve("lines.pages");
+    try (MappedPageStore store = new MappedPageStore(file, PlainTextComponentSerializer.plainText(), 6)) {
+      store.add(Component.text("Line 0"));
+      store.add(Component.text("Line 1"));
+    }
+    // the length of the second line now runs past the end of the store
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(4).putInt(0, 1000), 16 + 4 + "Line 0".length());
+    }
+    new MappedPageStore(file, PlainTextComponentSerializer.plainText(), 6).close();
+  }
+}
@@ -24,14 +24,30 @@
 package dev.majek.chattools;
 
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextColor;
 import net.kyori.adventure.text.format.TextDecoration;
+import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.kyori.adventure.text.minimessage.placeholder.Placeholder;
 import net.kyori.adventure.text.minimessage.placeholder.PlaceholderResolver;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class MiniMessageWrapperTest {
 
   @Test
@@ -89,6 +105,26 @@ public class MiniMessageWrapperTest {
         "<aqua>Majekdor with this color code &b",
         MiniMessageWrapper.legacy().mmString(string)
     );
+    // an escaped backslash escapes nothing after it
+    Assert.assertEquals("C:\\\\<aqua>x \\y", MiniMessageWrapper.legacy().mmString("C:\\\\&bx \\y"));
+  }
+
+  @Test
+  public void escapedLegacyHex() {
+    // a backslash keeps a hex code as text, whether hex colors are parsed or not
+    final MiniMessage miniMessage = MiniMessage.builder().build();
+    final MiniMessageWrapper hex = MiniMessageWrapper.legacy();
+    final MiniMessageWrapper noHex = MiniMessageWrapper.legacy().toBuilder().hexColors(false).build();
+    for (String code : List.of("&#ff0000", "&#f00", "&x&f&f&0&0&0&0")) {
+      for (MiniMessageWrapper wrapper : List.of(hex, noHex)) {
+        Assert.assertEquals(code + "Red", wrapper.mmString("\\" + code + "Red"));
+        Assert.assertEquals(miniMessage.parse(code + "Red"), wrapper.mmParse("\\" + code + "Red"));
+        // without the backslash the legacy fast path builds the same as mini message would
+        Assert.assertEquals(miniMessage.parse(wrapper.mmString(code + "Red")), wrapper.mmParse(code + "Red"));
+      }
+    }
+    Assert.assertEquals("<#ff0000>Red", hex.mmString("&#ff0000Red"));
+    Assert.assertEquals("Red", noHex.mmString("&#ff0000Red"));
   }
 
   @Test
@@ -117,6 +153,84 @@ public class MiniMessageWrapperTest {
     );
   }
 
+  @Test
+  public void legacyHexForms() {
+    final MiniMessageWrapper hex = MiniMessageWrapper.legacy();
+    final MiniMessageWrapper noHex = MiniMessageWrapper.legacy().toBuilder().hexColors(false).build();
+    Assert.assertEquals("<#ffaacc><#FACADE>!", hex.mmString("&#fac&#FACADE!"));
+    Assert.assertEquals("<#facade>!", hex.mmString("&x&f&a&c&a&d&e!"));
+    // a spigot code with a digit too many keeps the first six, one missing its '&' isn't a hex code
+    Assert.assertEquals("<#fcacad><yellow>", hex.mmString("&x&f&c&a&c&a&d&e"));
+    Assert.assertEquals("&x<white>a<red><green><light_purple><yellow>!", hex.mmString("&x&fa&c&a&d&e!"));
+    // without hex colors the three char form is left as text
+    Assert.assertEquals("&#fac!", noHex.mmString("&#fac&#FACADE!"));
+    Assert.assertEquals("!", noHex.mmString("&x&f&a&c&a&d&e!"));
+    Assert.assertEquals("&#fac&#FACADE!", MiniMessageWrapper.standard().mmString("&#fac&#FACADE!"));
+  }
+
+  @Test
+  public void escapes() {
+    final String escaped = "\\&#facade \\&c \\&x&f&a&c&a&d&e";
+    Assert.assertEquals("&#facade &c &x&f&a&c&a&d&e", MiniMessageWrapper.legacy().mmString(escaped));
+    Assert.assertEquals("\\&#facade \\ \\", MiniMessageWrapper.standard().mmString(escaped));
+    // removed colors go before escapes, so an escaped removed color leaves its backslash
+    Assert.assertEquals(
+        "&#facade \\ \\&x<white><green><green><light_purple><yellow>",
+        MiniMessageWrapper.legacy().toBuilder().removeColors(false, NamedTextColor.RED).build().mmString(escaped)
+    );
+    Assert.assertEquals("\\<red>x", MiniMessageWrapper.legacy().mmString("\\<red>x"));
+    Assert.assertEquals(
+        "\\x",
+        MiniMessageWrapper.builder().removeColors(false, NamedTextColor.RED).build().mmString("\\<red>x")
+    );
+  }
+
+  @Test
+  public void removedColorTags() {
+    final String string = "&cRed <red>Red</red> &aGreen";
+    Assert.assertEquals(
+        "Red Red <green>Green",
+        MiniMessageWrapper.legacy().toBuilder().removeColors(false, NamedTextColor.RED).build().mmString(string)
+    );
+    Assert.assertEquals("Red <red>Red</red> Green", MiniMessageWrapper.standard().mmString(string));
+    // stripping a removed code can close a tag around it, just as it always has
+    Assert.assertEquals(
+        "<red>",
+        MiniMessageWrapper.legacy().toBuilder().removeColors(false, NamedTextColor.RED).build().mmString("<red&c>")
+    );
+  }
+
+  @Test
+  public void gradientTags() {
+    final String string = "<gradient:#000000:#ffffff>x</gradient> \\<gradient:#000000:#ffffff>y";
+    Assert.assertEquals(string, MiniMessageWrapper.legacy().mmString(string));
+    Assert.assertEquals(
+        "x \\<gradient:#000000:#ffffff>y",
+        MiniMessageWrapper.legacy().toBuilder().gradients(false).build().mmString(string)
+    );
+  }
+
+  @Test
+  public void sanitizerDivergences() {
+    // where a single pass differs from replacing each pattern over the whole string in turn:
+    // a tag stitched together by stripping a code is not stripped again
+    Assert.assertEquals(
+        "<>",
+        MiniMessageWrapper.builder().hexColors(false).build().mmString("<&x>")
+    );
+    // removed colors inside a spigot hex code are only skipped for so long
+    final MiniMessageWrapper noRed = MiniMessageWrapper.legacy().toBuilder()
+        .removeColors(false, NamedTextColor.RED).build();
+    Assert.assertEquals("<#faadee>", noRed.mmString("&x&f&a&c&c&a&d&e&e"));
+    Assert.assertEquals("<#facade><yellow>", noRed.mmString("&x&f&a" + "&c".repeat(40) + "&a&d&e&e"));
+    // and gradient arguments are only read for so long, the rest of a longer tag is left as text
+    final MiniMessageWrapper noGradients = MiniMessageWrapper.builder().gradients(false).build();
+    Assert.assertEquals(
+        ":#000000".repeat(8) + ">x",
+        noGradients.mmString("<gradient" + ":#000000".repeat(40) + ">x")
+    );
+  }
+
   @Test
   public void everything() {
     String everything = "<gradient:#1eae98:#d8b5ff>Majek</gradient><aqua>dor<#336633>!";
@@ -255,4 +369,307 @@ public class MiniMessageWrapperTest {
         MiniMessageWrapper.legacy().mmParse(both)
     );
   }
+
+  @Test
+  public void toBuilderLeavesOriginalUntouched() {
+    final MiniMessageWrapper original = MiniMessageWrapper.builder().removeColors(true, NamedTextColor.RED).build();
+    original.toBuilder().removeColors(true, NamedTextColor.BLUE).build();
+    Assert.assertEquals(
+        "<blue>Majekdor",
+        original.mmString("<red><blue>Majekdor")
+    );
+  }
+
+  @Test
+  public void cache() {
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().cache(1).build();
+    final Component first = wrapper.mmParse("<blue>Majekdor");
+    Assert.assertSame(first, wrapper.mmParse("<blue>Majekdor"));
+    wrapper.mmParse("<red>Majekdor");
+    Assert.assertEquals(1, wrapper.cacheStats().hitCount());
+    Assert.assertEquals(2, wrapper.cacheStats().missCount());
+    Assert.assertEquals(1, wrapper.cacheStats().evictionCount());
+    Assert.assertEquals(1, wrapper.cacheStats().size());
+    Assert.assertEquals(0, MiniMessageWrapper.standard().cacheStats().requestCount());
+
+    // input heavier than the whole cache isn't kept, and doesn't push out what fits
+    final MiniMessageWrapper weighted = MiniMessageWrapper.builder().cacheWeight(16).build();
+    final Component small = weighted.mmParse("<blue>Majek");
+    Assert.assertNotSame(weighted.mmParse("<blue>Majekdor was here"), weighted.mmParse("<blue>Majekdor was here"));
+    Assert.assertSame(small, weighted.mmParse("<blue>Majek"));
+    Assert.assertEquals(0, weighted.cacheStats().evictionCount());
+    Assert.assertEquals(1, weighted.cacheStats().size());
+  }
+
+  @Test
+  public void batches() {
+    final List<String> strings = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      strings.add("&" + Integer.toHexString(i % 16) + "Line " + i);
+    }
+    final List<String> modified = MiniMessageWrapper.legacy().mmStringAll(strings);
+    Assert.assertEquals(strings.size(), modified.size());
+    for (int i = 0; i < strings.size(); i++) {
+      Assert.assertEquals(MiniMessageWrapper.legacy().mmString(strings.get(i)), modified.get(i));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Assert.assertEquals(modified, MiniMessageWrapper.legacy().mmStringAll(strings, executor));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void async() {
+    final String string = "&c&lRed and bold";
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.legacy();
+    Assert.assertEquals(wrapper.mmParse(string), wrapper.mmParseAsync(string).join());
+    Assert.assertEquals(wrapper.mmParse(string), wrapper.mmParseAsync(string, Runnable::run).join());
+  }
+
+  @Test
+  public void streaming() throws IOException {
+    final String string = "\\&c<gradient:#5e4fa2:#f79459>Gradient</gradient> &#ff0000Hex &x&0&0&f&f&0&0Spigot <#ff00ff>Tag";
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().legacyColors(true).gradients(false).build();
+    final String expected = wrapper.mmString(string);
+
+    final StringBuilder sequence = new StringBuilder();
+    wrapper.mmString((CharSequence) string, sequence);
+    Assert.assertEquals(expected, sequence.toString());
+
+    // one character per read, so every tag crosses a read boundary
+    final Reader reader = new FilterReader(new StringReader(string)) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(length, 1));
+      }
+    };
+    final StringWriter writer = new StringWriter();
+    wrapper.mmString(reader, writer);
+    Assert.assertEquals(expected, writer.toString());
+  }
+
+  @Test
+  public void streamingLongRuns() throws IOException {
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().legacyColors(true).gradients(false)
+        .removeColors(false, NamedTextColor.DARK_RED).build();
+    final String[] strings = {
+        "<gradient" + ":#abcdef".repeat(100_000) + ">Gradient",
+        "&" + "&4".repeat(100_000) + "cRed",
+        "&x" + "&4<dark_red>".repeat(100_000) + "&0&0&f&f&0&0Spigot"
+    };
+    for (final String string : strings) {
+      final StringWriter writer = new StringWriter();
+      wrapper.mmString(new StringReader(string), writer);
+      Assert.assertEquals(wrapper.mmString(string), writer.toString());
+      Assert.assertFalse(writer.toString().contains("<gradient"));
+      Assert.assertFalse(writer.toString().contains("&4"));
+    }
+  }
+
+  @Test
+  public void compiledTemplate() {
+    final String template = "<gray>[<rank>] <name>: <message>";
+    final Component rank = Component.text("Admin", NamedTextColor.RED);
+    final Component name = Component.text("Majekdor");
+    final Component message = Component.text("Hello", NamedTextColor.RED);
+    final CompiledTemplate compiled = MiniMessageWrapper.standard().compile(template, "rank", "name", "message");
+
+    final MiniMessageWrapper placeholders = MiniMessageWrapper.builder().placeholderResolver(
+        PlaceholderResolver.placeholders(Placeholder.component("rank", rank), Placeholder.component("name", name),
+            Placeholder.component("message", message))
+    ).build();
+    Assert.assertEquals(placeholders.mmParse(template), compiled.renderComponents(
+        Map.of("rank", rank, "name", name, "message", message)
+    ));
+
+    // values go through the restrictions of the wrapper that compiled the template
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.legacy();
+    final CompiledTemplate legacy = wrapper.compile(template, "rank", "name", "message");
+    Assert.assertEquals(
+        legacy.renderComponents(Map.of("rank", wrapper.mmParse("&cAdmin"), "name", wrapper.mmParse("Majekdor"),
+            "message", wrapper.mmParse("&cHello"))),
+        legacy.render(Map.of("rank", "&cAdmin", "name", "Majekdor", "message", "&cHello"))
+    );
+  }
+
+  @Test
+  public void repeatedHexColors() {
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().removeColors(true, NamedTextColor.RED).build();
+    final StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      input.append("<#ff5555>r<#fe5656>r<#55ff55>g");
+    }
+    Assert.assertEquals(input.toString().replace("<#ff5555>", "").replace("<#fe5656>", ""),
+        wrapper.mmString(input.toString()));
+  }
+
+  @Test
+  public void metrics() {
+    final MetricsHistogram histogram = new MetricsHistogram();
+    MetricsListener.register(histogram);
+    try {
+      MiniMessageWrapper.legacy().mmParse("&cRed &lBold");
+    } finally {
+      MetricsListener.unregister();
+    }
+    MiniMessageWrapper.legacy().mmParse("&cNot recorded");
+
+    Assert.assertEquals(1, histogram.count(MetricsListener.Operation.PARSE));
+    Assert.assertEquals(1, histogram.count(MetricsListener.Operation.SANITIZE));
+    Assert.assertEquals(12, histogram.averageInputSize(MetricsListener.Operation.PARSE), 0);
+    Assert.assertEquals(12, histogram.averageInputSize(MetricsListener.Operation.SANITIZE), 0);
+    Assert.assertEquals(MiniMessageWrapper.legacy().mmString("&cRed &lBold").length(),
+        histogram.averageOutputSize(MetricsListener.Operation.SANITIZE), 0);
+    Assert.assertTrue(histogram.percentileNanos(MetricsListener.Operation.PARSE, 99)
+        <= histogram.maxNanos(MetricsListener.Operation.PARSE));
+    Assert.assertEquals(2, histogram.dump().size());
+  }
+
+  @Test
+  public void budgets() {
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().legacyColors(true).maxInputLength(64)
+        .maxTags(4).maxNestingDepth(2).maxOutputNodes(8).build();
+    Assert.assertEquals("<red>Red</red> <blue>Blue", wrapper.mmString("&cRed</red> <blue>Blue"));
+    Assert.assertEquals("<red>A<reset><blue>B", wrapper.mmString("&cA&r&9B"));
+
+    final String[] overBudget = {"a".repeat(65), "&cA&rB&cC&rD&cE", "&cA&9B&aC", "&cA&rB"};
+    final MiniMessageWrapper.BudgetExceededException.Budget[] budgets = {
+        MiniMessageWrapper.BudgetExceededException.Budget.INPUT_LENGTH,
+        MiniMessageWrapper.BudgetExceededException.Budget.TAGS,
+        MiniMessageWrapper.BudgetExceededException.Budget.NESTING_DEPTH,
+        MiniMessageWrapper.BudgetExceededException.Budget.OUTPUT_NODES
+    };
+    for (int i = 0; i < overBudget.length; i++) {
+      try {
+        wrapper.toBuilder().maxOutputNodes(i == 3 ? 1 : 8).build().mmParse(overBudget[i]);
+        Assert.fail("Expected " + budgets[i] + " to be exceeded");
+      } catch (MiniMessageWrapper.BudgetExceededException ex) {
+        Assert.assertEquals(budgets[i], ex.budget());
+      }
+    }
+
+    // written straight to an output the tags are checked as they're written
+    final StringBuilder out = new StringBuilder();
+    try {
+      wrapper.mmString("&cA&rB&cC&rD&cE", out);
+      Assert.fail("Expected " + MiniMessageWrapper.BudgetExceededException.Budget.TAGS + " to be exceeded");
+    } catch (MiniMessageWrapper.BudgetExceededException ex) {
+      Assert.assertEquals(MiniMessageWrapper.BudgetExceededException.Budget.TAGS, ex.budget());
+    } catch (IOException ex) {
+      throw new AssertionError(ex);
+    }
+    Assert.assertEquals("<red>A<reset>B<red>C<reset>D", out.toString());
+  }
+
+  @Test
+  public void legacyFastPath() {
+    final MiniMessage miniMessage = MiniMessage.builder().build();
+    final MiniMessageWrapper restricted = MiniMessageWrapper.builder().legacyColors(true)
+        .removeColors(true, NamedTextColor.RED).preventLuminanceBelow(16).build();
+    final String[] strings = {"&9&lMajek&b&odor&x&f&a&c&a&d&e!", "&cRed &rplain &#363short &k&mmixed &#000000dark",
+        "no codes at all", "&r&r&lbold after resets", ""};
+    for (String string : strings) {
+      for (MiniMessageWrapper wrapper : List.of(MiniMessageWrapper.legacy(), restricted)) {
+        Assert.assertEquals(miniMessage.parse(wrapper.mmString(string)), wrapper.mmParse(string));
+      }
+    }
+  }
+
+  @Test
+  public void sanitizeComponent() {
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().hexColors(false)
+        .removeColors(false, NamedTextColor.RED).removeTextDecorations(TextDecoration.BOLD).build();
+    final Component clean = Component.text("Clean", NamedTextColor.BLUE).append(Component.text(" child"));
+    final Component child = Component.text(" child", NamedTextColor.GREEN);
+    final Component dirty = Component.text("Red", NamedTextColor.RED)
+        .append(Component.text(" hex", TextColor.color(0x336633)))
+        .append(Component.text(" bold", NamedTextColor.BLUE, TextDecoration.BOLD)
+            .clickEvent(ClickEvent.runCommand("/op Majekdor")))
+        .append(child);
+
+    Assert.assertSame(clean, MiniMessageWrapper.standard().sanitize(clean));
+    final Component sanitized = wrapper.sanitize(dirty);
+    Assert.assertEquals(
+        Component.text("Red").decoration(TextDecoration.BOLD, false).append(Component.text(" hex"))
+            .append(Component.text(" bold", NamedTextColor.BLUE).decoration(TextDecoration.BOLD, false))
+            .append(child),
+        sanitized
+    );
+    Assert.assertSame(child, sanitized.children().get(2));
+  }
+
+  @Test
+  public void customCssColors() {
+    Assert.assertEquals(TextColor.color(0xf0f8ff), CSSColorTable.css().get("AliceBlue"));
+    Assert.assertNull(CSSColorTable.css().get("alice"));
+    final CSSColorTable palette = CSSColorTable.css().toBuilder().put("server_red", TextColor.color(0xd62d20)).build();
+    Assert.assertEquals(CSSColorTable.css().size() + 1, palette.size());
+    Assert.assertFalse(CSSColorTable.css().contains("server_red"));
+    Assert.assertEquals(
+        Component.text("Palette").color(TextColor.color(0xd62d20)),
+        MiniMessageWrapper.builder().cssColors(palette).build().mmParse("<server_red>Palette")
+    );
+  }
+
+  @Test
+  public void downsample() {
+    Assert.assertSame(NamedTextColor.RED, Palette.named().nearest(TextColor.color(0xff5555)));
+    Assert.assertSame(NamedTextColor.RED, Palette.named().nearest(TextColor.color(0xfe5050)));
+    final MiniMessageWrapper wrapper = MiniMessageWrapper.builder().downsampleTo(Palette.named()).build();
+    Assert.assertEquals(
+        Component.text("Red").color(NamedTextColor.RED),
+        wrapper.mmParse("<#fe5050>Red")
+    );
+    final TextColor brand = TextColor.color(0x123456);
+    Assert.assertEquals(
+        Component.text("Brand").color(brand),
+        MiniMessageWrapper.builder().downsampleTo(Palette.of(brand)).build().mmParse("<css:orange>Brand")
+    );
+
+    // the template is downsampled, component values are inserted as they are
+    final Component value = Component.text("Hex", TextColor.color(0xfe5050));
+    final Component rendered = wrapper.compile("<#fe5050>Red <value>", "value")
+        .renderComponents(Map.of("value", value));
+    final Set<TextColor> colors = new HashSet<>();
+    colors(rendered, colors);
+    Assert.assertEquals(Set.of(NamedTextColor.RED, TextColor.color(0xfe5050)), colors);
+  }
+
+  @Test
+  public void largePalette() {
+    final Random random = new Random(42);
+    final List<TextColor> colors = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      colors.add(TextColor.color(random.nextInt(0x1000000)));
+    }
+    final Palette palette = Palette.of(colors);
+    for (int i = 0; i < 500; i++) {
+      // the center of a cell is what its nearest color was searched for
+      final int rgb = (random.nextInt(0x1000000) & 0xf8f8f8) | 0x040404;
+      final double[] lab = Palette.okLab(rgb);
+      TextColor nearest = null;
+      double nearestDistance = Double.MAX_VALUE;
+      for (final TextColor color : colors) {
+        final double[] other = Palette.okLab(color.value());
+        final double dl = lab[0] - other[0];
+        final double da = lab[1] - other[1];
+        final double db = lab[2] - other[2];
+        final double distance = dl * dl + da * da + db * db;
+        if (distance < nearestDistance) {
+          nearest = color;
+          nearestDistance = distance;
+        }
+      }
+      Assert.assertEquals(nearest, palette.nearest(TextColor.color(rgb)));
+    }
+  }
+
+  private static void colors(final Component component, final Set<TextColor> colors) {
+    if (component.color() != null) {
+      colors.add(component.color());
+    }
+    component.children().forEach(child -> colors(child, colors));
+  }
 }
@@ -0,0 +1,109 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.audience.MessageType;
+import net.kyori.adventure.identity.Identity;
+import net.kyori.adventure.text.Component;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PaginationSessionsTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final PaginationSessions sessions = new PaginationSessions("/pages", Duration.ofMinutes(5), 2,
+      this.clock::get);
+
+  @Test
+  public void clickedPage() {
+    final Viewer viewer = new Viewer();
+    final Pagination pagination = this.sessions.open(viewer, Component.text("Warps"));
+    for (int i = 0; i < 20; i++) {
+      pagination.addLine(Component.text("Warp " + i));
+    }
+    final String command = pagination.render(1).get(0).children().get(5).clickEvent().value();
+    Assert.assertTrue(command.startsWith("/pages "));
+    final String[] args = command.substring("/pages ".length()).split(" ");
+    Assert.assertEquals("2", args[1]);
+
+    Assert.assertEquals(PaginationSessions.Result.SENT,
+        this.sessions.sendPage(viewer, args[0], Integer.parseInt(args[1])));
+    Assert.assertEquals(Component.text("Warp 8"), viewer.messages.get(1));
+    Assert.assertEquals(PaginationSessions.Result.INVALID_PAGE, this.sessions.sendPage(viewer, args[0], 4));
+
+    // a new list makes the buttons of the old one stale
+    this.sessions.open(viewer, Component.text("Homes")).addLine(Component.text("Home"));
+    Assert.assertEquals(PaginationSessions.Result.STALE, this.sessions.sendPage(viewer, args[0], 1));
+  }
+
+  @Test
+  public void expires() {
+    final Viewer viewer = new Viewer();
+    final Pagination pagination = this.sessions.open(viewer, Component.text("Warps"));
+    this.clock.addAndGet(TimeUnit.MINUTES.toNanos(4));
+    Assert.assertSame(pagination, this.sessions.get(viewer));
+    this.clock.addAndGet(TimeUnit.MINUTES.toNanos(4));
+    Assert.assertSame(pagination, this.sessions.get(viewer));
+    this.clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+    Assert.assertNull(this.sessions.get(viewer));
+    Assert.assertEquals(PaginationSessions.Result.NO_SESSION, this.sessions.sendPage(viewer, "token", 1));
+  }
+
+  @Test
+  public void evicts() {
+    final Viewer first = new Viewer();
+    final Viewer second = new Viewer();
+    final Viewer third = new Viewer();
+    this.sessions.open(first, Component.text("First"));
+    this.sessions.open(second, Component.text("Second"));
+    this.sessions.get(first);
+    this.sessions.open(third, Component.text("Third"));
+    Assert.assertEquals(2, this.sessions.size());
+    Assert.assertNotNull(this.sessions.get(first));
+    Assert.assertNull(this.sessions.get(second));
+
+    this.clock.addAndGet(TimeUnit.MINUTES.toNanos(10));
+    this.sessions.expire();
+    Assert.assertEquals(0, this.sessions.size());
+  }
+
+  private static final class Viewer implements Audience {
+
+    private final List<Component> messages = new ArrayList<>();
+
+    @Override
+    public void sendMessage(final @NotNull Identity source, final @NotNull Component message,
+                            final @NotNull MessageType type) {
+      this.messages.add(message);
+    }
+  }
+}
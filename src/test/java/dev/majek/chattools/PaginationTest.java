@@ -0,0 +1,292 @@
+/*
+ * This file is part of chat-tools, licensed under the MIT License.
+ *
+ * Copyright (c) 2020-2022 Majekdor
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.majek.chattools;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PaginationTest {
+
+  private static @NotNull List<Component> numbered(final int count) {
+    final List<Component> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      lines.add(Component.text("Line " + i));
+    }
+    return lines;
+  }
+
+  @Test
+  public void renderSlicesPages() {
+    final Pagination pagination = new Pagination(Component.text("Header"), "/page").addLines(numbered(5000));
+    Assert.assertEquals(625, pagination.numPages());
+    final List<Component> last = pagination.render(625);
+    Assert.assertEquals(9, last.size());
+    Assert.assertEquals(Component.text("Line 4992"), last.get(1));
+    Assert.assertEquals(Component.text("Line 4999"), last.get(8));
+
+    pagination.addLine(Component.text("Line 5000"));
+    Assert.assertEquals(Component.text("Line 5000"), pagination.render(626).get(1));
+  }
+
+  @Test
+  public void headersAreCached() {
+    final Pagination pagination = new Pagination(Component.text("Header"), "/page").addLines(numbered(20));
+    final Component header = pagination.render(2).get(0);
+    Assert.assertSame(header, pagination.render(2).get(0));
+    Assert.assertEquals(ClickEvent.runCommand("/page 1"),
+        header.children().get(0).clickEvent());
+    Assert.assertEquals(ClickEvent.runCommand("/page 3"),
+        header.children().get(header.children().size() - 1).clickEvent());
+
+    // a new page changes the counter on every header
+    pagination.addLines(numbered(8));
+    Assert.assertNotEquals(header, pagination.render(2).get(0));
+
+    final Component before = pagination.render(1).get(0);
+    pagination.validButtonColor(NamedTextColor.AQUA);
+    final Component after = pagination.render(1).get(0);
+    Assert.assertNotSame(before, after);
+    Assert.assertEquals(NamedTextColor.AQUA, after.children().get(after.children().size() - 1).color());
+  }
+
+  @Test
+  public void concurrentRenders() throws Exception {
+    final Pagination pagination = new Pagination(Component.text("Header"), "/page",
+        PaginationSource.of(numbered(5000))).cachePages(4);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<?>> renders = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        renders.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            final int page = 1 + i % 100;
+            final List<Component> rendered = pagination.render(page);
+            Assert.assertEquals(Component.text("Line " + (page - 1) * 8), rendered.get(1));
+          }
+        }));
+      }
+      for (final Future<?> render : renders) {
+        render.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void settersRaceRenders() throws Exception {
+    final Pagination pagination = new Pagination(Component.text("Header"), "/page").addLines(numbered(80));
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      final List<Future<?>> renders = new ArrayList<>();
+      for (int thread = 0; thread < 3; thread++) {
+        renders.add(executor.submit(() -> {
+          for (int i = 0; running.get(); i++) {
+            pagination.render(1 + i % 10);
+          }
+        }));
+      }
+      for (int i = 0; i < 10_000; i++) {
+        pagination.validButtonColor(i % 2 == 0 ? NamedTextColor.AQUA : NamedTextColor.GREEN);
+      }
+      pagination.validButtonColor(NamedTextColor.BLUE);
+      running.set(false);
+      for (final Future<?> render : renders) {
+        render.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    // a render that started before the last change never caches what it built
+    for (int page = 1; page < 10; page++) {
+      final Component header = pagination.render(page).get(0);
+      Assert.assertEquals(NamedTextColor.BLUE, header.children().get(header.children().size() - 1).color());
+    }
+  }
+
+  @Test
+  public void sourcePullsOnlyThePage() {
+    final AtomicInteger built = new AtomicInteger();
+    final Pagination pagination = new Pagination(Component.text("Header"), "/page",
+        PaginationSource.indexed(() -> 1_000_000, i -> {
+          built.incrementAndGet();
+          return Component.text("Line " + i);
+        })).cachePages(2);
+    Assert.assertEquals(125_000, pagination.numPages());
+    final List<Component> page = pagination.render(3);
+    Assert.assertEquals(Component.text("Line 16"), page.get(1));
+    Assert.assertEquals(8, built.get());
+
+    pagination.render(3);
+    Assert.assertEquals(8, built.get());
+    pagination.clearCachedPages().render(3);
+    Assert.assertEquals(16, built.get());
+  }
+
+  @Test
+  public void iteratedSource() {
+    final List<Component> lines = numbered(20);
+    final AtomicInteger iterators = new AtomicInteger();
+    final Pagination pagination = new Pagination(Component.text("Header"), "/page",
+        PaginationSource.iterated(() -> 30, () -> {
+          iterators.incrementAndGet();
+          return lines.iterator();
+        }));
+    Assert.assertEquals(Component.text("Line 0"), pagination.render(1).get(1));
+    Assert.assertEquals(Component.text("Line 8"), pagination.render(2).get(1));
+    Assert.assertEquals(5, pagination.render(3).size());
+    Assert.assertEquals(1, iterators.get());
+    Assert.assertEquals(Component.text("Line 8"), pagination.render(2).get(1));
+    Assert.assertEquals(2, iterators.get());
+
+    // the size was only an estimate
+    Assert.assertThrows(Pagination.InvalidPageException.class, () -> pagination.render(4));
+  }
+
+  @Test
+  public void listSourcePastTheEnd() {
+    final List<Component> lines = numbered(10);
+    final PaginationSource source = PaginationSource.of(lines);
+    Assert.assertEquals(2, source.lines(8, 16).size());
+    lines.subList(5, 10).clear();
+    Assert.assertTrue(source.lines(8, 16).isEmpty());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void sourceLinesCantBeAdded() {
+    new Pagination(Component.text("Header"), "/page", PaginationSource.of(numbered(3))).addLine(Component.text("Line"));
+  }
+
+  @Test
+  public void filter() {
+    final Pagination pagination = new Pagination(Component.text("Warps"), "/warps")
+        .addLines(Component.text("Warp Spawn"), Component.text("Home base"))
+        .searchable();
+    for (int i = 0; i < 20; i++) {
+      pagination.addLine(Component.text("Warp Nether " + i));
+    }
+    pagination.addLine(Component.text("Nether-warp portal, the warp everyone uses"));
+
+    final Pagination warps = pagination.filter("WAR", "/warps search war");
+    Assert.assertEquals(3, warps.numPages());
+    Assert.assertEquals(Component.text("Warp Spawn"), warps.render(1).get(1));
+
+    final Pagination nether = pagination.filter("warp neth 7", "/warps search warp neth 7");
+    Assert.assertEquals(1, nether.numPages());
+    final List<Component> page = nether.render(1);
+    Assert.assertEquals(List.of(Component.text("Warp Nether 7")), page.subList(1, page.size()));
+
+    Assert.assertEquals(0, pagination.filter("end", "/warps search end").numPages());
+    Assert.assertEquals(pagination.numPages(), pagination.filter(" ", "/warps search").numPages());
+  }
+
+  @Test
+  public void filterCutLines() {
+    final Pagination pagination = new Pagination(Component.text("Warps"), "/warps").maxChatWidth(20)
+        .addLines(Component.text("Spawn"), Component.text("The long warp to the nether fortress"))
+        .searchable()
+        .addLines(Component.text("Supercalifragilisticexpialidocious warp"),
+            Component.text("Another long warp to the nether roof"));
+    Assert.assertEquals(7, pagination.lines().size());
+
+    // the word was cut in two with dashes, but is still found whole
+    final List<Component> word = pagination.filter("supercalifragilisticexpialidocious", "/warps search").render(1);
+    Assert.assertEquals(pagination.lines().subList(3, 5), word.subList(1, word.size()));
+
+    final List<Component> roof = pagination.filter("warp roof", "/warps search warp roof").render(1);
+    Assert.assertEquals(pagination.lines().subList(5, 7), roof.subList(1, roof.size()));
+
+    // a line cut before the pagination was searchable is matched part by part
+    final List<Component> fortress = pagination.filter("fortress", "/warps search fortress").render(1);
+    Assert.assertEquals(pagination.lines().subList(2, 3), fortress.subList(1, fortress.size()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void filterNeedsIndex() {
+    new Pagination(Component.text("Warps"), "/warps").filter("warp", "/warps search warp");
+  }
+
+  @Test
+  public void linesCanBeChanged() {
+    final Pagination pagination = new Pagination(Component.text("Header"), "/page").addLines(numbered(2000))
+        .searchable();
+    pagination.lines().subList(10, 2000).clear();
+    pagination.lines().remove(0);
+    pagination.lines().set(0, Component.text("First"));
+    pagination.lines().add(Component.text("Last"));
+    Assert.assertEquals(10, pagination.lines().size());
+    Assert.assertEquals(2, pagination.numPages());
+    Assert.assertEquals(Component.text("First"), pagination.render(1).get(1));
+    Assert.assertEquals(Component.text("Last"), pagination.render(2).get(2));
+
+    // the index is built again from the changed lines
+    Assert.assertEquals(1, pagination.filter("line 9", "/page search").render(1).size() - 1);
+    Assert.assertEquals(0, pagination.filter("1999", "/page search").numPages());
+    pagination.lines().clear();
+    Assert.assertEquals(0, pagination.addLine(Component.text("Line 1")).filter("first", "/page search").numPages());
+  }
+
+  @Test
+  public void metrics() {
+    final MetricsHistogram histogram = new MetricsHistogram();
+    MetricsListener.register(histogram);
+    try {
+      new Pagination(Component.text("Warps"), "/warps").maxChatWidth(20)
+          .addLines(Component.text("Spawn"), Component.text("The long warp to the nether fortress"))
+          .render(1);
+    } finally {
+      MetricsListener.unregister();
+    }
+    new Pagination(Component.text("Header"), "/page").addLine(Component.text("Not recorded")).render(1);
+
+    // only the line that's too long is cut
+    Assert.assertEquals(1, histogram.count(MetricsListener.Operation.ADD_LINES));
+    Assert.assertEquals(2, histogram.averageInputSize(MetricsListener.Operation.ADD_LINES), 0);
+    Assert.assertEquals(3, histogram.averageOutputSize(MetricsListener.Operation.ADD_LINES), 0);
+    Assert.assertEquals(1, histogram.count(MetricsListener.Operation.CUT));
+    Assert.assertEquals(2, histogram.averageOutputSize(MetricsListener.Operation.CUT), 0);
+    Assert.assertEquals(1, histogram.count(MetricsListener.Operation.RENDER));
+    Assert.assertEquals(3, histogram.averageInputSize(MetricsListener.Operation.RENDER), 0);
+    Assert.assertEquals(0, histogram.count(MetricsListener.Operation.PARSE));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void sourceLinesCantBeChanged() {
+    new Pagination(Component.text("Header"), "/page", PaginationSource.of(numbered(3)))
+        .lines().add(Component.text("Line"));
+  }
+}